@@ -0,0 +1,28 @@
+package com.tiagoferreira.library.benchmark;
+
+import com.tiagoferreira.library.LibraryApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        List<String> defaults = new ArrayList<>(List.of(
+                "logging.level.root=WARN",
+                "spring.jpa.open-in-view=false",
+                "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1"));
+        defaults.addAll(List.of(properties));
+
+        return new SpringApplicationBuilder(LibraryApplication.class)
+                .web(webApplicationType)
+                .properties(defaults.toArray(String[]::new))
+                .run();
+    }
+}
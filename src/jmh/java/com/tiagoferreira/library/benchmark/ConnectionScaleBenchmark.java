@@ -0,0 +1,103 @@
+package com.tiagoferreira.library.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rajadas de `connections` requisições simultâneas (uma conexão HTTP/1.1 por requisição em voo)
+ * contra o {@code BookController} bloqueante (Tomcat, 200 threads) e a API reativa (Netty, event loops).
+ * O stack reativo exige o profile Maven `reactive`: mvn -Pbenchmark,reactive verify
+ * (o limite de descritores do processo, ulimit -n, precisa ser maior que o número de conexões).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+public class ConnectionScaleBenchmark {
+
+    private static final String REACTIVE_APPLICATION = "com.tiagoferreira.library.reactive.ReactiveLibraryApplication";
+
+    private static final int CATALOG_SIZE = 1_000;
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"blocking", "reactive"})
+    private String stack;
+
+    @Param({"10000"})
+    private int connections;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        if ("reactive".equals(stack)) {
+            context = new SpringApplicationBuilder(Class.forName(REACTIVE_APPLICATION))
+                    .web(WebApplicationType.REACTIVE)
+                    .profiles("reactive")
+                    .properties("server.port=0", "logging.level.root=WARN")
+                    .run();
+        } else {
+            context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                    "server.port=0",
+                    "library.cache.enabled=false",
+                    "server.tomcat.max-connections=" + connections,
+                    "server.tomcat.accept-count=" + connections);
+        }
+
+        var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+        // mesma carga inicial pelos dois stacks: o endpoint de criação existe em ambos
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            var body = "{\"nome\":\"Harry Potter " + i + "\",\"autor\":\"J.K.Rolling\",\"isbn\":\"scale-" + i + "\"}";
+            var request = HttpRequest.newBuilder(URI.create(baseUrl + "/books"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int burst() {
+        var random = ThreadLocalRandom.current();
+        var responses = new CompletableFuture<?>[connections];
+        for (int i = 0; i < connections; i++) {
+            var page = random.nextInt(CATALOG_SIZE / PAGE_SIZE);
+            var request = HttpRequest.newBuilder(URI.create(baseUrl + "/books/all?size=" + PAGE_SIZE + "&page=" + page))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+}
@@ -0,0 +1,87 @@
+package com.tiagoferreira.library.benchmark;
+
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.service.book.IBookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga HTTP com mais clientes simultâneos do que as 200 threads padrão do Tomcat.
+ * O modo SampleTime reporta os percentis (p99) e o Throughput a vazão de cada modo de execução.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+public class LoadBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var properties = new ArrayList<String>();
+        properties.add("server.port=0");
+        properties.add("library.cache.enabled=false");
+        if ("virtual".equals(mode)) {
+            properties.add("spring.profiles.active=virtual");
+        }
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, properties.toArray(String[]::new));
+
+        var requests = new ArrayList<BookRequest>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            requests.add(BookRequest.builder()
+                    .nome("Harry Potter " + i)
+                    .autor("J.K.Rolling")
+                    .isbn("load-" + i)
+                    .build());
+        }
+        context.getBean(IBookService.class).createAll(requests);
+
+        var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findAllPage() throws IOException, InterruptedException {
+        var page = ThreadLocalRandom.current().nextInt(CATALOG_SIZE / PAGE_SIZE);
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + "/books/all?size=" + PAGE_SIZE + "&page=" + page))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,62 @@
+package com.tiagoferreira.library.benchmark;
+
+import com.tiagoferreira.library.service.loan.LoanJournal;
+import com.tiagoferreira.library.service.loan.LoanJournalEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Custo de gravar um evento no journal de empréstimos: fsync agrupado pela thread de fundo ({@code group})
+ * contra um fsync a cada evento ({@code every}), que é o que o POST /loans pagaria sem o agrupamento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LoanJournalBenchmark {
+
+    @Param({"group", "every"})
+    private String sync;
+
+    private Path directory;
+
+    private LoanJournal journal;
+
+    private long loanId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("loan-journal-benchmark");
+        journal = new LoanJournal(directory, 64 * 1024 * 1024, Duration.ofMillis(10), 100);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (var path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void append() {
+        var id = ++loanId;
+        journal.append(new LoanJournalEvent(LoanJournalEvent.Type.CREATED, Instant.now(), id, id % 10_000,
+                "Fulano", "teste@gmail.com", LocalDate.now(), false));
+        if ("every".equals(sync)) {
+            journal.flush();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.tiagoferreira.library.benchmark;
+
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.model.book.BookMapper;
+import com.tiagoferreira.library.model.book.BookMapperImpl;
+import com.tiagoferreira.library.model.book.BookResponse;
+import com.tiagoferreira.library.model.loan.LoanMapper;
+import com.tiagoferreira.library.model.loan.LoanMapperImpl;
+import com.tiagoferreira.library.model.loan.LoanResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapperBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+
+    private BookMapper bookMapper;
+
+    private LoanMapper loanMapper;
+
+    private Book book;
+
+    private Loan loan;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(BookMapperImpl.class, LoanMapperImpl.class);
+        bookMapper = context.getBean(BookMapper.class);
+        loanMapper = context.getBean(LoanMapper.class);
+
+        book = Book.builder()
+                .id(1L)
+                .nome("Harry Potter")
+                .autor("J.K.Rolling")
+                .isbn("978-85-325-1101-2")
+                .build();
+        loan = Loan.builder()
+                .id(1L)
+                .customer("Fulano")
+                .customerEmail("teste@gmail.com")
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .book(book)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookResponse bookToResponse() {
+        return bookMapper.toResponse(book);
+    }
+
+    @Benchmark
+    public LoanResponse loanToResponse() {
+        return loanMapper.toResponse(loan);
+    }
+}
@@ -0,0 +1,44 @@
+package com.tiagoferreira.library.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagoferreira.library.model.book.BookResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private Page<BookResponse> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        var content = new ArrayList<BookResponse>(size);
+        for (long i = 1; i <= size; i++) {
+            content.add(new BookResponse(i, "Harry Potter " + i, "J.K.Rolling", "978-85-325-" + i, true, null));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, size), 1_000_000);
+    }
+
+    @Benchmark
+    public byte[] serializeBookPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,112 @@
+package com.tiagoferreira.library.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagoferreira.library.model.LeanPage;
+import com.tiagoferreira.library.model.book.BookResponse;
+import com.tiagoferreira.library.model.loan.LoanResponse;
+import com.tiagoferreira.library.model.loan.LoanSummaryResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Página de 1.000 empréstimos em JSON, CBOR e Smile, no envelope `Page` completo e no enxuto.
+ * O tempo mede a serialização; o tamanho da resposta, com e sem gzip, sai no resultado secundário {@code :bytes}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PayloadBenchmark {
+
+    private static final int SIZE = 1000;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"page", "lean"})
+    private String envelope;
+
+    private ObjectMapper objectMapper;
+
+    private Object body;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+
+        var pageable = PageRequest.of(0, SIZE);
+        if ("lean".equals(envelope)) {
+            var content = new ArrayList<LoanSummaryResponse>(SIZE);
+            for (long i = 1; i <= SIZE; i++) {
+                content.add(new LoanSummaryResponse(i, "Fulano " + i, "fulano" + i + "@gmail.com", i,
+                        LocalDate.of(2024, 1, 1).plusDays(i % 365), i % 2 == 0));
+            }
+            body = LeanPage.of(new SliceImpl<>(content, pageable, true));
+        } else {
+            var content = new ArrayList<LoanResponse>(SIZE);
+            for (long i = 1; i <= SIZE; i++) {
+                content.add(new LoanResponse(i, "Fulano " + i, "fulano" + i + "@gmail.com",
+                        new BookResponse(i, "Harry Potter " + i, "J.K.Rolling", "978-85-325-" + i, true, null),
+                        LocalDate.of(2024, 1, 1).plusDays(i % 365), i % 2 == 0));
+            }
+            body = new PageImpl<>(content, pageable, 1_000_000);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeLoanPage(PayloadSize size) throws IOException {
+        var bytes = objectMapper.writeValueAsBytes(body);
+        size.record(bytes.length);
+        return bytes;
+    }
+
+    @Benchmark
+    public int serializeAndCompressLoanPage(PayloadSize size) throws IOException {
+        var buffer = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(buffer)) {
+            objectMapper.writeValue(gzip, body);
+        }
+        size.record(buffer.size());
+        return buffer.size();
+    }
+
+    /**
+     * Tamanho da resposta em bytes, publicado como resultado secundário {@code :bytes}. O JMH soma contadores
+     * {@code EVENTS} entre threads, iterações e forks; cada um guarda a sua fração, e a soma é o tamanho.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public double bytes;
+
+        private double share;
+
+        @Setup(Level.Iteration)
+        public void reset(BenchmarkParams benchmark, IterationParams iteration) {
+            bytes = 0;
+            share = 1.0 / ((long) benchmark.getThreads() * iteration.getCount() * Math.max(1, benchmark.getForks()));
+        }
+
+        void record(int size) {
+            bytes = size * share;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.tiagoferreira.library.benchmark;
+
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.model.book.BookMapper;
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.model.book.BookResponse;
+import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.service.book.IBookService;
+import com.tiagoferreira.library.service.loan.ILoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ServiceBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    private static final int PAGE_SIZE = 20;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    private IBookService bookService;
+
+    private ILoanService loanService;
+
+    private BookMapper bookMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE);
+        bookService = context.getBean(IBookService.class);
+        loanService = context.getBean(ILoanService.class);
+        bookMapper = context.getBean(BookMapper.class);
+
+        var requests = new ArrayList<BookRequest>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            requests.add(nextBook());
+        }
+        bookService.createAll(requests);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book bookCreate() {
+        return bookService.create(nextBook());
+    }
+
+    @Benchmark
+    public Page<BookResponse> bookFindAll() {
+        var page = (int) (sequence.getAndIncrement() % (CATALOG_SIZE / PAGE_SIZE));
+        return bookService.findAll(PageRequest.of(page, PAGE_SIZE), bookMapper::toResponse);
+    }
+
+    @Benchmark
+    public Loan loanCreate(AvailableBook availableBook) {
+        return loanService.create(LoanRequest.builder()
+                .customer("Fulano")
+                .customerEmail("bench-" + sequence.incrementAndGet() + "@gmail.com")
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .idBook(availableBook.id)
+                .build());
+    }
+
+    private BookRequest nextBook() {
+        var id = sequence.incrementAndGet();
+        return BookRequest.builder()
+                .nome("Harry Potter " + id)
+                .autor("J.K.Rolling")
+                .isbn("bench-" + id + "-" + System.nanoTime())
+                .build();
+    }
+
+    @State(Scope.Thread)
+    public static class AvailableBook {
+
+        private Long id;
+
+        @Setup(Level.Invocation)
+        public void setUp(ServiceBenchmark benchmark) {
+            id = benchmark.bookService.create(benchmark.nextBook()).getId();
+        }
+    }
+}
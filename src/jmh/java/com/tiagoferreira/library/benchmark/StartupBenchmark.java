@@ -0,0 +1,75 @@
+package com.tiagoferreira.library.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tempo até a primeira requisição com o profile `persistent`, sobre um H2 em arquivo já populado.
+ * O banco é criado uma vez pelas migrações e reaberto a cada inicialização medida.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class StartupBenchmark {
+
+    @Param({"1000000"})
+    private int books;
+
+    private Path dataDir;
+
+    private String url;
+
+    private HttpClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        dataDir = Files.createTempDirectory("library-startup");
+        url = "jdbc:h2:file:" + dataDir.resolve("library");
+
+        Flyway.configure().dataSource(url, "sa", "").load().migrate();
+        try (var connection = DriverManager.getConnection(url, "sa", "");
+             var statement = connection.createStatement()) {
+            statement.executeUpdate("insert into BOOK (ID, NOME, AUTOR, ISBN) select X, 'Livro ' || X, "
+                    + "'Autor ' || mod(X, 1000), 'startup-' || X from system_range(1, " + books + ")");
+            statement.execute("alter sequence BOOK_SEQ restart with " + (books + 1));
+        }
+
+        client = HttpClient.newHttpClient();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int timeToFirstRequest() throws IOException, InterruptedException {
+        try (var context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "spring.profiles.active=persistent",
+                "library.data-dir=" + dataDir,
+                "server.port=0")) {
+            var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/books/" + books)).GET().build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+    }
+}
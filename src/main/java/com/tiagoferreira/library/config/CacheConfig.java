@@ -0,0 +1,33 @@
+package com.tiagoferreira.library.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache em memória (Caffeine, despejo W-TinyLFU) das consultas por id de livros e empréstimos.
+ * Escritas e remoções só chegam ao cache após o commit, para não guardar dados de transações desfeitas.
+ * Desligue com {@code library.cache.enabled=false} para comparar com o caminho sem cache.
+ */
+@Configuration
+@EnableCaching
+@ConditionalOnProperty(name = "library.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheConfig {
+
+    public static final String BOOKS = "books";
+
+    public static final String LOANS = "loans";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${library.cache.spec}") String spec) {
+        var cacheManager = new CaffeineCacheManager(BOOKS, LOANS);
+        cacheManager.setCacheSpecification(spec);
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
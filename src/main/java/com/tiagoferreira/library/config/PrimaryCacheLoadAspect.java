@@ -0,0 +1,23 @@
+package com.tiagoferreira.library.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * Com a réplica de leitura e o cache ligados, as cargas dos métodos {@code @Cacheable} vão ao primário: o que entra no cache
+ * fica lá até expirar, e uma linha atrasada da réplica seria servida muito além de
+ * {@code library.datasource.routing.max-lag}, inclusive para quem acabou de escrever.
+ */
+@Aspect
+@Component
+@ConditionalOnExpression("${library.datasource.routing.enabled:false} and ${library.cache.enabled:true}")
+public class PrimaryCacheLoadAspect {
+
+    @Around("@annotation(org.springframework.cache.annotation.Cacheable)")
+    public Object loadFromPrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+        return ReplicaRoutingDataSource.onPrimary(joinPoint::proceed);
+    }
+}
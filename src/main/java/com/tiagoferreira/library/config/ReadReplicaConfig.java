@@ -0,0 +1,65 @@
+package com.tiagoferreira.library.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Separa leituras e escritas em dois pools: {@code spring.datasource.*} (primário) e
+ * {@code library.datasource.replica.*} (réplica), roteados pelo {@link ReplicaRoutingDataSource}.
+ * O {@link LazyConnectionDataSourceProxy} adia a escolha até o primeiro comando, quando a transação já está
+ * registrada, e o Hibernate devolve a conexão ao fim de cada transação para que o open-in-view não reaproveite
+ * a conexão de uma transação anterior da mesma requisição.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.datasource.routing.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        var dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("library.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        var dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                      @Qualifier("replicaDataSource") DataSource replica,
+                                                      @Value("${library.datasource.routing.max-lag:PT1S}") Duration maxLag) {
+        return new ReplicaRoutingDataSource(primary, replica, maxLag);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,156 @@
+package com.tiagoferreira.library.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Envia as transações {@code readOnly} para a réplica e todo o resto para o primário.
+ * Uma leitura volta ao primário quando a mesma requisição já escreveu (read-your-writes) ou quando o mesmo cliente
+ * escreveu há menos que o atraso tolerado da réplica. O momento da última escrita do cliente vai no cookie
+ * {@value #LAST_WRITE_COOKIE}, gravado na resposta depois do commit; escritas de outros clientes não tiram as
+ * leituras da réplica.
+ * <p>
+ * Os caches só recebem linhas do primário: as cargas dentro de {@link #onPrimary} (as de {@code @Cacheable}) vão
+ * ao primário, e a sessão do Hibernate de uma transação na réplica fica em {@link CacheMode#GET}, lendo do cache de
+ * segundo nível sem gravar nele.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    public static final String LAST_WRITE_COOKIE = "library-last-write";
+
+    private static final String WROTE_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".WROTE";
+
+    private static final ThreadLocal<Boolean> PRIMARY_READ = new ThreadLocal<>();
+
+    private final long maxLagMillis;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag) {
+        this.maxLagMillis = maxLag.toMillis();
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Executa {@code read} com as leituras {@code readOnly} no primário, sem marcar a requisição como escrita.
+     */
+    public static <T> T onPrimary(PrimaryRead<T> read) throws Throwable {
+        if (PRIMARY_READ.get() != null) {
+            return read.run();
+        }
+        PRIMARY_READ.set(Boolean.TRUE);
+        try {
+            return read.run();
+        } finally {
+            PRIMARY_READ.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                onWrite();
+                setCacheMode(CacheMode.NORMAL);
+            }
+            return Target.PRIMARY;
+        }
+        var target = readTarget();
+        setCacheMode(target == Target.REPLICA ? CacheMode.GET : CacheMode.NORMAL);
+        return target;
+    }
+
+    /**
+     * Banco que uma transação {@code readOnly} aberta agora pela requisição corrente usaria.
+     */
+    public Target readTarget() {
+        return PRIMARY_READ.get() != null || wroteInRequest() || clientMayReadLag() ? Target.PRIMARY : Target.REPLICA;
+    }
+
+    /**
+     * Ajusta a sessão do Hibernate da transação corrente, a mesma que vai usar a conexão escolhida.
+     */
+    private static void setCacheMode(CacheMode mode) {
+        for (var resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder holder) {
+                holder.getEntityManager().unwrap(Session.class).setCacheMode(mode);
+            }
+        }
+    }
+
+    private void onWrite() {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        attributes.setAttribute(WROTE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+
+        var response = attributes instanceof ServletRequestAttributes servlet ? servlet.getResponse() : null;
+        if (response != null && maxLagMillis > 0) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markLastWrite(response);
+                }
+            });
+        }
+    }
+
+    private void markLastWrite(HttpServletResponse response) {
+        var cookie = new Cookie(LAST_WRITE_COOKIE, Long.toString(System.currentTimeMillis()));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, (maxLagMillis + 999) / 1000));
+        response.addCookie(cookie);
+    }
+
+    private boolean wroteInRequest() {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(WROTE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    /**
+     * Verdadeiro se o cliente da requisição escreveu há menos que o atraso tolerado, pelo cookie da última escrita.
+     */
+    private boolean clientMayReadLag() {
+        if (maxLagMillis <= 0 || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes servlet)) {
+            return false;
+        }
+        var cookies = servlet.getRequest().getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (var cookie : cookies) {
+            if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                try {
+                    var elapsed = System.currentTimeMillis() - Long.parseLong(cookie.getValue());
+                    return elapsed >= 0 && elapsed < maxLagMillis;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    public interface PrimaryRead<T> {
+        T run() throws Throwable;
+    }
+}
@@ -0,0 +1,46 @@
+package com.tiagoferreira.library.config;
+
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.cache.Caching;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * Entrega ao Hibernate um CacheManager do Ehcache próprio de cada contexto, montado a partir de
+ * {@code hibernate.javax.cache.uri}. Pela URI o provedor JCache devolveria o mesmo CacheManager a todos os contextos
+ * da JVM (como nos testes com bancos diferentes), e um contexto leria entidades em cache de outro banco.
+ * O Hibernate fecha o CacheManager junto com a SessionFactory.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    static final String CONFIG_URI = "hibernate.javax.cache.uri";
+
+    static final String CACHE_MANAGER = "hibernate.javax.cache.cache_manager";
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManager() {
+        return properties -> {
+            var location = properties.get(CONFIG_URI);
+            if (location == null) {
+                return;
+            }
+            try {
+                var configuration = new XmlConfiguration(new ClassPathResource(location.toString()).getURL());
+                var provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+                properties.put(CACHE_MANAGER,
+                        provider.getCacheManager(URI.create("library:" + UUID.randomUUID()), configuration));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
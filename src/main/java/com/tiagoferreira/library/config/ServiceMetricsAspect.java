@@ -0,0 +1,57 @@
+package com.tiagoferreira.library.config;
+
+import com.tiagoferreira.library.exception.DomainException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mede cada chamada de {@code IBookService} e {@code ILoanService} no timer {@code library.service},
+ * com as tags {@code service}, {@code operation} e {@code outcome} (success, domain_error ou error).
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceMetricsAspect {
+
+    static final String METRIC = "library.service";
+
+    private final MeterRegistry registry;
+
+    public ServiceMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(* com.tiagoferreira.library.service.book.IBookService.*(..))"
+            + " || execution(* com.tiagoferreira.library.service.loan.ILoanService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        var sample = Timer.start(registry);
+        var outcome = "success";
+        var exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (DomainException e) {
+            outcome = "domain_error";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } catch (Throwable e) {
+            outcome = "error";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC)
+                    .description("Latência dos serviços de livros e empréstimos")
+                    .tag("service", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+}
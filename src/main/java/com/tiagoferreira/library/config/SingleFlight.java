@@ -0,0 +1,85 @@
+package com.tiagoferreira.library.config;
+
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Agrupa cargas concorrentes da mesma chave: a primeira chamada executa a carga e as que chegam enquanto ela
+ * está em andamento esperam o mesmo futuro, recebendo o resultado (ou a cópia dele feita por {@code copy}) ou a
+ * mesma exceção.
+ * A espera é limitada por {@code timeout}; nada fica guardado depois que a carga termina.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder collapsed = new LongAdder();
+
+    private final Duration timeout;
+
+    public SingleFlight(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public V load(K key, Loader<V> loader) throws Throwable {
+        return load(key, loader, UnaryOperator.identity());
+    }
+
+    /**
+     * Como {@link #load(Object, Loader)}, mas quem espera recebe a sua própria cópia do resultado: a carga publica
+     * uma cópia feita na sua thread e cada chamada agrupada copia essa publicação.
+     */
+    public V load(K key, Loader<V> loader, UnaryOperator<V> copy) throws Throwable {
+        var flight = new CompletableFuture<V>();
+        var running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            collapsed.increment();
+            return copy.apply(await(running));
+        }
+
+        try {
+            var value = loader.load();
+            flight.complete(copy.apply(value));
+            return value;
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Quantas chamadas foram atendidas por uma carga já em andamento.
+     */
+    public long collapsed() {
+        return collapsed.sum();
+    }
+
+    private V await(CompletableFuture<V> running) throws Throwable {
+        try {
+            return running.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("Tempo esgotado aguardando carga em andamento", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws Throwable;
+    }
+}
@@ -0,0 +1,120 @@
+package com.tiagoferreira.library.config;
+
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.entity.Loan;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Agrupa chamadas concorrentes de {@code IBookService.getById} e {@code ILoanService.findById} para o mesmo id
+ * em uma única carga ({@link SingleFlight}). Roda por fora do cache e da transação, então quem espera não abre
+ * transação nem segura conexão. Só agrupa chamadas sem transação ativa (dentro de uma, a leitura pertence àquela
+ * transação), e só as que iriam ao mesmo banco pela {@link ReplicaRoutingDataSource}. Quem espera recebe uma cópia
+ * destacada da entidade, nunca a instância da sessão de outra thread.
+ * As chamadas agrupadas são contadas em {@code library.single-flight.collapsed}.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "library.single-flight.enabled", havingValue = "true", matchIfMissing = true)
+public class SingleFlightAspect {
+
+    static final String METRIC = "library.single-flight.collapsed";
+
+    private final SingleFlight<Key, Object> books;
+
+    private final SingleFlight<Key, Object> loans;
+
+    private final ObjectProvider<ReplicaRoutingDataSource> routing;
+
+    public SingleFlightAspect(MeterRegistry registry,
+                              ObjectProvider<ReplicaRoutingDataSource> routing,
+                              @Value("${library.single-flight.timeout:5s}") Duration timeout) {
+        this.books = register(registry, "IBookService", "getById", new SingleFlight<>(timeout));
+        this.loans = register(registry, "ILoanService", "findById", new SingleFlight<>(timeout));
+        this.routing = routing;
+    }
+
+    @Around("execution(* com.tiagoferreira.library.service.book.IBookService.getById(..)) && args(id)")
+    public Object bookById(ProceedingJoinPoint joinPoint, Long id) throws Throwable {
+        return collapsible(id) ? books.load(key(id), joinPoint::proceed, SingleFlightAspect::copyBook) : joinPoint.proceed();
+    }
+
+    @Around("execution(* com.tiagoferreira.library.service.loan.ILoanService.findById(..)) && args(id)")
+    public Object loanById(ProceedingJoinPoint joinPoint, Long id) throws Throwable {
+        return collapsible(id) ? loans.load(key(id), joinPoint::proceed, SingleFlightAspect::copyLoan) : joinPoint.proceed();
+    }
+
+    private static boolean collapsible(Long id) {
+        return id != null && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    private Key key(Long id) {
+        var dataSource = routing.getIfAvailable();
+        return new Key(id, dataSource == null ? null : dataSource.readTarget());
+    }
+
+    private static Object copyBook(Object value) {
+        if (!(value instanceof Book book)) {
+            return value;
+        }
+        return Book.builder()
+                .id(book.getId())
+                .nome(book.getNome())
+                .autor(book.getAutor())
+                .isbn(book.getIsbn())
+                .version(book.getVersion())
+                .available(book.getAvailable())
+                .currentLoanId(book.getCurrentLoanId())
+                .build();
+    }
+
+    private static Object copyLoan(Object value) {
+        if (!(value instanceof Loan loan)) {
+            return value;
+        }
+        var book = loan.getBook();
+        return Loan.builder()
+                .id(loan.getId())
+                .customer(loan.getCustomer())
+                .customerEmail(loan.getCustomerEmail())
+                .loanDate(loan.getLoanDate())
+                .returned(loan.getReturned())
+                .returnedAt(loan.getReturnedAt())
+                .version(loan.getVersion())
+                .activeBookId(loan.getActiveBookId())
+                .book(book == null ? null : Hibernate.isInitialized(book)
+                        ? (Book) copyBook(Hibernate.unproxy(book))
+                        : Book.builder().id(book.getId()).build())
+                .build();
+    }
+
+    private static <K, V> SingleFlight<K, V> register(MeterRegistry registry, String service, String operation,
+                                                      SingleFlight<K, V> flight) {
+        FunctionCounter.builder(METRIC, flight, SingleFlight::collapsed)
+                .description("Chamadas atendidas por uma carga já em andamento")
+                .tag("service", service)
+                .tag("operation", operation)
+                .register(registry);
+        return flight;
+    }
+
+    /**
+     * Id consultado e o banco para onde a leitura iria ({@code null} sem réplica).
+     */
+    private record Key(Long id, ReplicaRoutingDataSource.Target target) {
+    }
+}
@@ -1,12 +1,25 @@
 package com.tiagoferreira.library.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.model.CursorPage;
+import com.tiagoferreira.library.model.LeanPage;
+import com.tiagoferreira.library.model.book.BookBatchResponse;
 import com.tiagoferreira.library.model.book.BookMapper;
 import com.tiagoferreira.library.model.book.BookRequest;
 import com.tiagoferreira.library.model.book.BookResponse;
 import com.tiagoferreira.library.service.book.IBookService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/books")
@@ -14,10 +27,12 @@ public class BookController {
 
     private final BookMapper mapper;
     private final IBookService service;
+    private final ObjectMapper objectMapper;
 
-    public BookController(BookMapper mapper, IBookService service) {
+    public BookController(BookMapper mapper, IBookService service, ObjectMapper objectMapper) {
         this.mapper = mapper;
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -25,9 +40,19 @@ public class BookController {
         return mapper.toResponse(service.create(request));
     }
 
+    @PostMapping("/batch")
+    public BookBatchResponse createAll(@RequestBody List<BookRequest> requests) {
+        return service.createAll(requests);
+    }
+
     @GetMapping("/{id}")
-    public BookResponse getById(@PathVariable Long id) {
-        return mapper.toResponse(service.getById(id));
+    public ResponseEntity<BookResponse> getById(@PathVariable Long id, WebRequest webRequest) {
+        var version = service.getVersion(id);
+        if (version != null && webRequest.checkNotModified(VersionETag.of(version))) {
+            return null;
+        }
+        var book = service.getById(id);
+        return ResponseEntity.ok().eTag(VersionETag.of(book.getVersion())).body(mapper.toResponse(book));
     }
 
     @DeleteMapping("/{id}")
@@ -36,12 +61,54 @@ public class BookController {
     }
 
     @PutMapping("/{id}")
-    public BookResponse update(@RequestBody BookRequest request, @PathVariable Long id) {
-        return mapper.toResponse(service.update(request, id));
+    public ResponseEntity<BookResponse> update(@RequestBody BookRequest request, @PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        var book = service.update(request, id, VersionETag.expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(VersionETag.of(book.getVersion())).body(mapper.toResponse(book));
     }
 
     @GetMapping("/all")
-    public Page<BookResponse> findAll(Pageable pageable) {
-        return service.findAll(pageable, mapper::toResponse);
+    public ResponseEntity<Page<BookResponse>> findAll(Pageable pageable, WebRequest webRequest) {
+        var page = service.findAll(pageable, Function.<Book>identity());
+        var etag = VersionETag.of(page, Book::getId, Book::getVersion);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(page.map(mapper::toResponse));
+    }
+
+    @GetMapping(value = "/all", params = "lean=true")
+    public ResponseEntity<LeanPage<BookResponse>> findAllLean(Pageable pageable, WebRequest webRequest) {
+        var slice = service.findSlice(pageable, Function.<Book>identity());
+        var etag = VersionETag.of(slice, Book::getId, Book::getVersion);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(LeanPage.of(slice.map(mapper::toResponse)));
+    }
+
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public void export(HttpServletResponse response) throws IOException {
+        try (var writer = new NdjsonWriter(objectMapper, response)) {
+            service.export(mapper::toResponse, writer);
+        }
+    }
+
+    @GetMapping("/search")
+    public List<BookResponse> search(@RequestParam("q") String query,
+                                     @RequestParam(defaultValue = "20") int limit) {
+        return service.search(query, limit, mapper::toResponse);
+    }
+
+    @GetMapping("/cursor")
+    public CursorPage<BookResponse> findAfter(@RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "20") int size) {
+        return service.findAfter(cursor, size, mapper::toResponse);
+    }
+
+    @GetMapping("/available")
+    public CursorPage<BookResponse> findAvailable(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "20") int size) {
+        return service.findAvailable(cursor, size, mapper::toResponse);
     }
 }
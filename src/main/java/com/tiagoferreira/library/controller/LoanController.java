@@ -1,12 +1,28 @@
 package com.tiagoferreira.library.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.model.CursorPage;
+import com.tiagoferreira.library.model.LeanPage;
 import com.tiagoferreira.library.model.loan.LoanMapper;
 import com.tiagoferreira.library.model.loan.LoanRequest;
 import com.tiagoferreira.library.model.loan.LoanResponse;
+import com.tiagoferreira.library.model.loan.LoanReturnRequest;
+import com.tiagoferreira.library.model.loan.LoanReturnResponse;
+import com.tiagoferreira.library.model.loan.LoanSummaryResponse;
+import com.tiagoferreira.library.repository.LoanVersion;
 import com.tiagoferreira.library.service.loan.ILoanService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/loans")
@@ -16,9 +32,12 @@ public class LoanController {
 
     private final ILoanService service;
 
-    public LoanController(LoanMapper mapper, ILoanService service) {
+    private final ObjectMapper objectMapper;
+
+    public LoanController(LoanMapper mapper, ILoanService service, ObjectMapper objectMapper) {
         this.mapper = mapper;
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -26,9 +45,15 @@ public class LoanController {
         return mapper.toResponse(service.create(request));
     }
 
+    @PatchMapping("/returns")
+    public LoanReturnResponse returnAll(@RequestBody LoanReturnRequest request) {
+        return service.returnAll(request);
+    }
+
     @PatchMapping("/{id}")
-    public LoanResponse retornedBook(@RequestBody LoanRequest request, @PathVariable Long id) {
-        return mapper.toResponse(service.retornedBook(id, request));
+    public ResponseEntity<LoanResponse> retornedBook(@RequestBody LoanRequest request, @PathVariable Long id,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(service.retornedBook(id, request, VersionETag.expectedVersion(ifMatch)));
     }
 
     @DeleteMapping("/{id}")
@@ -37,19 +62,79 @@ public class LoanController {
     }
 
     @PutMapping("/{id}")
-    public LoanResponse update(@RequestBody LoanRequest request, @PathVariable Long id) {
-        return mapper.toResponse(service.update(id, request));
+    public ResponseEntity<LoanResponse> update(@RequestBody LoanRequest request, @PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(service.update(id, request, VersionETag.expectedVersion(ifMatch)));
     }
 
     @GetMapping("/all")
-    public Page<LoanResponse> findAll(Pageable pageable) {
-        return service.findAll(pageable, mapper::toResponse);
+    public ResponseEntity<Page<LoanResponse>> findAll(Pageable pageable, WebRequest webRequest) {
+        var page = service.findAll(pageable, Function.<Loan>identity());
+        var etag = VersionETag.of(page, Loan::getId, LoanVersion::of);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(page.map(mapper::toResponse));
     }
 
-    @GetMapping("/{id}")
-    public LoanResponse findById(@PathVariable Long id) {
-        return mapper.toResponse(service.findById(id));
+    @GetMapping(value = "/all", params = "lean=true")
+    public ResponseEntity<LeanPage<LoanSummaryResponse>> findAllLean(Pageable pageable, WebRequest webRequest) {
+        var slice = service.findSlice(pageable, Function.<Loan>identity());
+        var etag = VersionETag.of(slice, Loan::getId, Loan::getVersion);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(LeanPage.of(slice.map(mapper::toSummary)));
+    }
+
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public void export(HttpServletResponse response) throws IOException {
+        try (var writer = new NdjsonWriter(objectMapper, response)) {
+            service.export(mapper::toResponse, writer);
+        }
+    }
+
+    @GetMapping(value = "/export", params = "archived=true", produces = NdjsonWriter.MEDIA_TYPE)
+    public void exportWithArchive(HttpServletResponse response) throws IOException {
+        try (var writer = new NdjsonWriter(objectMapper, response)) {
+            service.exportWithArchive(mapper::toSummary, mapper::toSummary, writer);
+        }
+    }
+
+    @GetMapping("/cursor")
+    public CursorPage<LoanResponse> findAfter(@RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "20") int size) {
+        return service.findAfter(cursor, size, mapper::toResponse);
+    }
+
+    @GetMapping(value = "/cursor", params = "archived=true")
+    public CursorPage<LoanSummaryResponse> findArchivedAfter(@RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "20") int size) {
+        return service.findArchivedAfter(cursor, size, mapper::toSummary);
+    }
+
+    @GetMapping("/overdue")
+    public CursorPage<LoanResponse> findOverdue(@RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "20") int size) {
+        return service.findOverdue(cursor, size, mapper::toResponse);
     }
 
+    @GetMapping("/customer/{email}")
+    public List<LoanResponse> findOpenByCustomer(@PathVariable String email) {
+        return service.findOpenByCustomer(email, mapper::toResponse);
+    }
 
+    @GetMapping("/{id}")
+    public ResponseEntity<LoanResponse> findById(@PathVariable Long id, WebRequest webRequest) {
+        var version = service.getVersion(id);
+        if (version != null && webRequest.checkNotModified(VersionETag.of(version.loan(), version.book()))) {
+            return null;
+        }
+        return withETag(service.findById(id));
+    }
+
+    private ResponseEntity<LoanResponse> withETag(Loan loan) {
+        var version = LoanVersion.of(loan);
+        return ResponseEntity.ok().eTag(VersionETag.of(version.loan(), version.book())).body(mapper.toResponse(loan));
+    }
 }
@@ -0,0 +1,46 @@
+package com.tiagoferreira.library.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+class NdjsonWriter implements Consumer<Object>, AutoCloseable {
+
+    static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final JsonGenerator generator;
+
+    private int pending;
+
+    NdjsonWriter(ObjectMapper objectMapper, HttpServletResponse response) throws IOException {
+        response.setContentType(MEDIA_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        this.generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void accept(Object item) {
+        try {
+            generator.writeObject(item);
+            generator.writeRaw('\n');
+            if (++pending == 1 || pending % FLUSH_EVERY == 0) {
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,21 @@
+package com.tiagoferreira.library.controller;
+
+import com.tiagoferreira.library.model.stats.StatsResponse;
+import com.tiagoferreira.library.service.stats.IStatsService;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final IStatsService service;
+
+    public StatsController(IStatsService service) {
+        this.service = service;
+    }
+
+    @GetMapping
+    public StatsResponse summary(@RequestParam(defaultValue = "30") int days) {
+        return service.summary(days);
+    }
+}
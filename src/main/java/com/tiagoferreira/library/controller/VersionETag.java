@@ -0,0 +1,80 @@
+package com.tiagoferreira.library.controller;
+
+import com.tiagoferreira.library.exception.PreconditionFailedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * ETags fortes derivadas das colunas de versão. A de uma página é o SHA-256 da posição da página
+ * e dos pares id/versão de cada item, sem serializar o conteúdo.
+ */
+final class VersionETag {
+
+    private static final String SEPARATOR = "-";
+
+    private VersionETag() {
+    }
+
+    static String of(Object... versions) {
+        var tag = new StringBuilder("\"");
+        for (int i = 0; i < versions.length; i++) {
+            if (i > 0) {
+                tag.append(SEPARATOR);
+            }
+            tag.append(versions[i]);
+        }
+        return tag.append('"').toString();
+    }
+
+    static <T> String of(Slice<T> slice, Function<T, ?> id, Function<T, ?> version) {
+        var digest = sha256();
+        update(digest, slice.getNumber());
+        update(digest, slice.getSize());
+        update(digest, slice instanceof Page<T> page ? "total=" + page.getTotalElements() : "next=" + slice.hasNext());
+        for (T item : slice) {
+            update(digest, id.apply(item));
+            update(digest, version.apply(item));
+        }
+        return "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+    }
+
+    /**
+     * Cada valor entra com o tamanho na frente, para que sequências diferentes nunca gerem os mesmos bytes.
+     */
+    private static void update(MessageDigest digest, Object value) {
+        var text = String.valueOf(value);
+        digest.update((text.length() + ":" + text).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Versão esperada informada no If-Match; nula quando o cabeçalho não veio ou é "*".
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        var value = ifMatch.trim();
+        if (value.length() < 3 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            throw new PreconditionFailedException("ETag inválida");
+        }
+        try {
+            return Long.valueOf(value.substring(1, value.length() - 1).split(SEPARATOR, 2)[0]);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("ETag inválida");
+        }
+    }
+}
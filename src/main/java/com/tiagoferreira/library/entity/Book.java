@@ -2,10 +2,18 @@ package com.tiagoferreira.library.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(indexes = {
+        @Index(name = "UK_BOOK_ISBN", columnList = "ISBN", unique = true),
+        @Index(name = "IDX_BOOK_AVAILABLE", columnList = "AVAILABLE, id")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -14,7 +22,8 @@ import java.util.List;
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "BOOK_SEQ", allocationSize = 50)
     private Long id;
 
     @Column(name = "NOME")
@@ -26,6 +35,20 @@ public class Book {
     @Column(name = "ISBN")
     private String isbn;
 
+    @Version
+    @Column(name = "VERSION")
+    private Long version;
+
+    /**
+     * Mantido pelo {@code LoanService} na mesma transação do empréstimo, para não consultar LOAN.
+     */
+    @Builder.Default
+    @Column(name = "AVAILABLE", nullable = false)
+    private Boolean available = true;
+
+    @Column(name = "CURRENT_LOAN_ID")
+    private Long currentLoanId;
+
     @OneToMany(mappedBy = "book")
     private List<Loan> loans;
 }
@@ -0,0 +1,27 @@
+package com.tiagoferreira.library.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+/**
+ * Quantidade de empréstimos em aberto por cliente, mantida pelo LoanService na mesma transação do empréstimo.
+ */
+@Entity
+@Table(name = "CUSTOMER_LOAN_COUNTER")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CustomerLoanCounter {
+
+    @Id
+    @Column(name = "CUSTOMER_EMAIL")
+    private String customerEmail;
+
+    @Column(name = "OPEN_LOANS", nullable = false)
+    private int openLoans;
+}
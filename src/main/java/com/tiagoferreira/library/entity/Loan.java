@@ -6,6 +6,14 @@ import lombok.*;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "IDX_LOAN_BOOK_RETURNED", columnList = "id_book, RETURNED"),
+        @Index(name = "IDX_LOAN_RETURNED_DATE", columnList = "RETURNED, LOAN_DATE, id"),
+        @Index(name = "IDX_LOAN_DATE", columnList = "LOAN_DATE"),
+        @Index(name = "IDX_LOAN_CUSTOMER_EMAIL", columnList = "CUSTOMER_EMAIL, RETURNED"),
+        @Index(name = "IDX_LOAN_RETURNED_AT", columnList = "RETURNED_AT, id"),
+        @Index(name = "UK_LOAN_ACTIVE_BOOK", columnList = "ACTIVE_BOOK_ID", unique = true)
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -24,12 +32,27 @@ public class Loan {
     private String customerEmail;
 
     @JoinColumn(name = "id_book")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book;
 
     @Column(name = "LOAN_DATE")
     private LocalDate loanDate;
 
-    @Column(name = "RETURNED")
-    private Boolean returned;
+    @Builder.Default
+    @Column(name = "RETURNED", nullable = false)
+    private Boolean returned = false;
+
+    /**
+     * Data da devolução, nula enquanto o empréstimo está em aberto; decide quando ele vai para LOAN_ARCHIVE.
+     */
+    @Column(name = "RETURNED_AT")
+    private LocalDate returnedAt;
+
+    @Version
+    @Column(name = "VERSION")
+    private Long version;
+
+    @Column(name = "ACTIVE_BOOK_ID", insertable = false, updatable = false,
+            columnDefinition = "BIGINT GENERATED ALWAYS AS (CASE WHEN RETURNED THEN NULL ELSE id_book END)")
+    private Long activeBookId;
 }
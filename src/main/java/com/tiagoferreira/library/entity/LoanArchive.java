@@ -0,0 +1,51 @@
+package com.tiagoferreira.library.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Empréstimo devolvido movido de LOAN pelo {@code LoanArchiver}. Só leitura; o livro fica apenas como id,
+ * sem chave estrangeira, para que o histórico sobreviva à remoção do livro.
+ */
+@Entity
+@Immutable
+@Table(name = "LOAN_ARCHIVE", indexes = {
+        @Index(name = "IDX_LOAN_ARCHIVE_BOOK", columnList = "ID_BOOK"),
+        @Index(name = "IDX_LOAN_ARCHIVE_CUSTOMER_EMAIL", columnList = "CUSTOMER_EMAIL")
+})
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LoanArchive {
+
+    @Id
+    @Column(name = "ID")
+    private Long id;
+
+    @Column(name = "CUSTOMER")
+    private String customer;
+
+    @Column(name = "CUSTOMER_EMAIL")
+    private String customerEmail;
+
+    @Column(name = "ID_BOOK")
+    private Long bookId;
+
+    @Column(name = "LOAN_DATE")
+    private LocalDate loanDate;
+
+    @Column(name = "RETURNED_AT")
+    private LocalDate returnedAt;
+
+    @Column(name = "VERSION")
+    private Long version;
+
+    @Column(name = "ARCHIVED_AT")
+    private Instant archivedAt;
+}
@@ -0,0 +1,33 @@
+package com.tiagoferreira.library.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "SCAN_CHECKPOINT")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ScanCheckpoint {
+
+    @Id
+    @Column(name = "NAME")
+    private String name;
+
+    @Column(name = "LAST_LOAN_DATE")
+    private LocalDate lastLoanDate;
+
+    @Column(name = "LAST_LOAN_ID")
+    private Long lastLoanId;
+
+    @Column(name = "UPDATED_AT")
+    private Instant updatedAt;
+}
@@ -0,0 +1,11 @@
+package com.tiagoferreira.library.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends DomainException {
+    public PreconditionFailedException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,19 @@
+package com.tiagoferreira.library.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    private String next;
+}
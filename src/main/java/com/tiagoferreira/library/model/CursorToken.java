@@ -0,0 +1,51 @@
+package com.tiagoferreira.library.model;
+
+import com.tiagoferreira.library.exception.DomainException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Token opaco da paginação por cursor: base64 das chaves de ordenação do último registro visto.
+ */
+public final class CursorToken {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorToken() {
+    }
+
+    public static String encode(Object... keys) {
+        var joined = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                joined.append(SEPARATOR);
+            }
+            joined.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String[] decode(String token, int parts) {
+        try {
+            var keys = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\" + SEPARATOR, -1);
+            if (keys.length != parts) {
+                throw new DomainException("Cursor inválido");
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new DomainException("Cursor inválido");
+        }
+    }
+
+    public static Long decodeId(String token) {
+        if (token == null || token.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.valueOf(decode(token, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new DomainException("Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.tiagoferreira.library.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Envelope enxuto de página: apenas o conteúdo, a posição e se há próxima página, sem contagem total.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeanPage<T> {
+
+    private List<T> content;
+
+    private int page;
+
+    private int size;
+
+    private boolean hasNext;
+
+    public static <T> LeanPage<T> of(Slice<T> slice) {
+        return new LeanPage<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext());
+    }
+}
@@ -0,0 +1,21 @@
+package com.tiagoferreira.library.model.book;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BookBatchItemResponse {
+
+    private int index;
+
+    private String isbn;
+
+    private Long id;
+
+    private boolean success;
+
+    private String message;
+}
@@ -0,0 +1,21 @@
+package com.tiagoferreira.library.model.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookBatchResponse {
+
+    private int created;
+
+    private int failed;
+
+    private List<BookBatchItemResponse> items;
+}
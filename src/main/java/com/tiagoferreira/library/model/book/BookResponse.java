@@ -18,4 +18,8 @@ public class BookResponse {
     private String autor;
 
     private String isbn;
+
+    private Boolean available;
+
+    private Long currentLoanId;
 }
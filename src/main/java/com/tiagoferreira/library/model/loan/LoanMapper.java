@@ -1,11 +1,19 @@
 package com.tiagoferreira.library.model.loan;
 
 import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.entity.LoanArchive;
 import com.tiagoferreira.library.model.book.BookMapper;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring", uses = {BookMapper.class})
 public interface LoanMapper {
 
     LoanResponse toResponse(Loan loan);
+
+    @Mapping(target = "bookId", source = "book.id")
+    LoanSummaryResponse toSummary(Loan loan);
+
+    @Mapping(target = "returned", constant = "true")
+    LoanSummaryResponse toSummary(LoanArchive loan);
 }
@@ -0,0 +1,17 @@
+package com.tiagoferreira.library.model.loan;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LoanReturnRequest {
+
+    private List<Long> loanIds;
+
+    private List<Long> bookIds;
+}
@@ -0,0 +1,19 @@
+package com.tiagoferreira.library.model.loan;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanReturnResponse {
+
+    private int returned;
+
+    private List<Long> notMatched;
+}
@@ -0,0 +1,25 @@
+package com.tiagoferreira.library.model.loan;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LoanSummaryResponse {
+
+    private Long id;
+
+    private String customer;
+
+    private String customerEmail;
+
+    private Long bookId;
+
+    private LocalDate loanDate;
+
+    private Boolean returned;
+}
@@ -0,0 +1,17 @@
+package com.tiagoferreira.library.model.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookStatsResponse {
+
+    private Long bookId;
+
+    private long loans;
+}
@@ -0,0 +1,27 @@
+package com.tiagoferreira.library.model.stats;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StatsResponse {
+
+    private long books;
+
+    private long loans;
+
+    private long openLoans;
+
+    private List<AuthorStatsResponse> topAuthors;
+
+    private List<BookStatsResponse> mostBorrowedBooks;
+
+    private Map<LocalDate, Long> loansPerDay;
+}
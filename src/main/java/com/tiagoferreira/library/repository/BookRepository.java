@@ -1,14 +1,105 @@
 package com.tiagoferreira.library.repository;
 
 import com.tiagoferreira.library.entity.Book;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM Book b WHERE b.isbn = :isbn")
     boolean existsByIsbn(@Param("isbn") String isbn);
+
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Query("SELECT b FROM Book b WHERE b.id > :lastId ORDER BY b.id ASC")
+    Slice<Book> findNextPage(@Param("lastId") Long lastId, Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE b.available = true AND b.id > :lastId ORDER BY b.id ASC")
+    Slice<Book> findAvailableAfter(@Param("lastId") Long lastId, Pageable pageable);
+
+    /**
+     * Lê o livro do banco, sem passar pelos caches, e o bloqueia até o fim da transação.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.id = :id")
+    Optional<Book> findForUpdate(@Param("id") Long id);
+
+    /**
+     * Livro cuja disponibilidade não bate com o empréstimo em aberto, com {@code b} o livro e {@code l} o empréstimo.
+     */
+    String AVAILABILITY_DRIFT = "((l.id IS NULL AND (b.available = false OR b.currentLoanId IS NOT NULL))"
+            + " OR (l.id IS NOT NULL AND (b.available = true OR b.currentLoanId IS NULL OR b.currentLoanId <> l.id)))";
+
+    /**
+     * Livros cujo estado de disponibilidade não bate com o empréstimo em aberto (id do livro, id do empréstimo ou nulo).
+     */
+    @Query("SELECT b.id, l.id FROM Book b LEFT JOIN Loan l ON l.activeBookId = b.id WHERE b.id > :lastId"
+            + " AND " + AVAILABILITY_DRIFT + " ORDER BY b.id ASC")
+    List<Object[]> findAvailabilityDrift(@Param("lastId") Long lastId, Pageable pageable);
+
+    /**
+     * Mesma divergência de {@link #findAvailabilityDrift(Long, Pageable)}, restrita aos livros informados.
+     */
+    @Query("SELECT b.id, l.id FROM Book b LEFT JOIN Loan l ON l.activeBookId = b.id WHERE b.id IN :ids"
+            + " AND " + AVAILABILITY_DRIFT + " ORDER BY b.id ASC")
+    List<Object[]> findAvailabilityDrift(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lê os livros do banco e os bloqueia até o fim da transação, em ordem de id para não travar com outro bloqueio.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.id in :ids order by b.id")
+    List<Book> findAllForUpdate(@Param("ids") Collection<Long> ids);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id ASC")
+    Stream<Book> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IS NOT NULL")
+    Stream<String> streamAllIsbns();
+
+    Slice<Book> findAllBy(Pageable pageable);
+
+    @Query("SELECT b FROM Book b")
+    List<Book> findPage(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT COUNT(b) FROM Book b")
+    long countForPage();
+
+    @Query("SELECT b.version FROM Book b WHERE b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id AS id, b.nome AS nome, b.autor AS autor FROM Book b")
+    Stream<BookSearchView> streamAllForSearch();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.autor FROM Book b")
+    Stream<String> streamAllAutores();
+
+    @Query("SELECT b FROM Book b WHERE lower(b.nome) LIKE lower(concat('%', :query, '%'))"
+            + " OR lower(b.autor) LIKE lower(concat('%', :query, '%')) ORDER BY b.id")
+    List<Book> searchByNomeOrAutor(@Param("query") String query, Pageable pageable);
 }
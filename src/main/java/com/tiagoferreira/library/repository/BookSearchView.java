@@ -0,0 +1,10 @@
+package com.tiagoferreira.library.repository;
+
+public interface BookSearchView {
+
+    Long getId();
+
+    String getNome();
+
+    String getAutor();
+}
@@ -0,0 +1,34 @@
+package com.tiagoferreira.library.repository;
+
+import com.tiagoferreira.library.entity.CustomerLoanCounter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CustomerLoanCounterRepository extends JpaRepository<CustomerLoanCounter, String> {
+
+    /**
+     * Reserva um empréstimo para o cliente em um único comando pela chave primária.
+     * Retorna 0 quando o cliente já está no limite. A tabela é declarada para que o comando nativo
+     * invalide só ela no cache de segundo nível, e não todas as regiões.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "CUSTOMER_LOAN_COUNTER"))
+    @Query(value = "merge into CUSTOMER_LOAN_COUNTER c"
+            + " using (values (cast(:email as varchar(255)))) s(CUSTOMER_EMAIL) on c.CUSTOMER_EMAIL = s.CUSTOMER_EMAIL"
+            + " when matched and c.OPEN_LOANS < :limit then update set OPEN_LOANS = c.OPEN_LOANS + 1"
+            + " when not matched and :limit > 0 then insert (CUSTOMER_EMAIL, OPEN_LOANS) values (s.CUSTOMER_EMAIL, 1)",
+            nativeQuery = true)
+    int reserve(@Param("email") String email, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update CustomerLoanCounter c set c.openLoans = case when c.openLoans > :count then c.openLoans - :count else 0 end"
+            + " where c.customerEmail = :email")
+    int release(@Param("email") String email, @Param("count") int count);
+}
@@ -0,0 +1,47 @@
+package com.tiagoferreira.library.repository;
+
+import com.tiagoferreira.library.entity.LoanArchive;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.stream.Stream;
+
+@Repository
+public interface LoanArchiveRepository extends JpaRepository<LoanArchive, Long> {
+
+    /**
+     * Copia os empréstimos para o arquivo em um único insert-select. Só LOAN_ARCHIVE é declarada, para que o
+     * comando nativo não invalide as regiões de LOAN e BOOK no cache de segundo nível.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "LOAN_ARCHIVE"))
+    @Query(value = "insert into LOAN_ARCHIVE (ID, CUSTOMER, CUSTOMER_EMAIL, ID_BOOK, LOAN_DATE, RETURNED_AT, VERSION, ARCHIVED_AT)"
+            + " select ID, CUSTOMER, CUSTOMER_EMAIL, ID_BOOK, LOAN_DATE, RETURNED_AT, VERSION, :archivedAt"
+            + " from LOAN where ID in :ids",
+            nativeQuery = true)
+    int copyFromLoans(@Param("ids") Collection<Long> ids, @Param("archivedAt") Instant archivedAt);
+
+    @Query("select a from LoanArchive a where a.id > :lastId order by a.id asc")
+    Slice<LoanArchive> findNextPage(@Param("lastId") Long lastId, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select a from LoanArchive a order by a.id asc")
+    Stream<LoanArchive> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select a.bookId as bookId, a.loanDate as loanDate, true as returned from LoanArchive a")
+    Stream<LoanStatsView> streamAllForStats();
+}
@@ -1,14 +1,108 @@
 package com.tiagoferreira.library.repository;
 
 import com.tiagoferreira.library.entity.Loan;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
 
-    @Query("select case when (count(l.id) > 0) then true else false end from Loan l where l.book.id = :idBook")
-    boolean existsByBookAndNotReturned(@Param("idBook") Long idBook);
+    boolean existsByBookIdAndReturnedFalse(Long idBook);
+
+    @Query("select new com.tiagoferreira.library.repository.LoanVersion(l.version, b.version)"
+            + " from Loan l left join l.book b where l.id = :id")
+    Optional<LoanVersion> findVersionById(@Param("id") Long id);
+
+    @EntityGraph(attributePaths = "book")
+    @Query("select l from Loan l")
+    List<Loan> findPage(Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select count(l) from Loan l")
+    long countForPage();
+
+    Slice<Loan> findAllBy(Pageable pageable);
+
+    @EntityGraph(attributePaths = "book")
+    Optional<Loan> findWithBookById(Long id);
+
+    @Query("select l from Loan l left join fetch l.book where l.id > :lastId order by l.id asc")
+    Slice<Loan> findNextPage(@Param("lastId") Long lastId, Pageable pageable);
+
+    /**
+     * Empréstimos em aberto entre {@code ids} (id, id do livro, e-mail do cliente), bloqueados até o fim da transação
+     * para que a devolução em lote libere o contador e o livro só dos que ela mesma fechar.
+     */
+    @Query(value = "select ID, ID_BOOK, CUSTOMER_EMAIL from LOAN where ID in (:ids) and RETURNED = false"
+            + " order by ID for update",
+            nativeQuery = true)
+    List<Object[]> lockOpenByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Como {@link #lockOpenByIdIn}, pelos ids dos livros.
+     */
+    @Query(value = "select ID, ID_BOOK, CUSTOMER_EMAIL from LOAN where ID_BOOK in (:bookIds) and RETURNED = false"
+            + " order by ID for update",
+            nativeQuery = true)
+    List<Object[]> lockOpenByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("select l from Loan l left join fetch l.book where l.customerEmail = :email and l.returned = false"
+            + " order by l.loanDate asc, l.id asc")
+    List<Loan> findOpenByCustomerEmail(@Param("email") String email);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Loan l set l.returned = true, l.returnedAt = :today, l.version = l.version + 1"
+            + " where l.id in :ids and l.returned = false")
+    int markReturned(@Param("ids") Collection<Long> ids, @Param("today") LocalDate today);
+
+    /**
+     * Próximo lote de empréstimos devolvidos antes de {@code cutoff}, bloqueados até o fim da transação para que
+     * nenhum seja reaberto entre a cópia para o arquivo e a remoção.
+     */
+    @Query(value = "select ID from LOAN where RETURNED = true and RETURNED_AT < :cutoff"
+            + " order by RETURNED_AT, ID fetch first :limit rows only for update",
+            nativeQuery = true)
+    List<Long> lockArchivable(@Param("cutoff") LocalDate cutoff, @Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from Loan l where l.id in :ids and l.returned = true")
+    int deleteArchived(@Param("ids") Collection<Long> ids);
+
+    @Query("select l from Loan l left join fetch l.book where l.returned = false and l.loanDate < :cutoff"
+            + " order by l.loanDate asc, l.id asc")
+    Slice<Loan> findOverdue(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+    @Query("select l from Loan l left join fetch l.book where l.returned = false and l.loanDate < :cutoff"
+            + " and (l.loanDate > :lastDate or (l.loanDate = :lastDate and l.id > :lastId))"
+            + " order by l.loanDate asc, l.id asc")
+    Slice<Loan> findOverdueAfter(@Param("cutoff") LocalDate cutoff,
+                                 @Param("lastDate") LocalDate lastDate,
+                                 @Param("lastId") Long lastId,
+                                 Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select l from Loan l left join fetch l.book order by l.id asc")
+    Stream<Loan> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select l.book.id as bookId, l.loanDate as loanDate, l.returned as returned from Loan l")
+    Stream<LoanStatsView> streamAllForStats();
 }
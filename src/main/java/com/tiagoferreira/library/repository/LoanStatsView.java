@@ -0,0 +1,12 @@
+package com.tiagoferreira.library.repository;
+
+import java.time.LocalDate;
+
+public interface LoanStatsView {
+
+    Long getBookId();
+
+    LocalDate getLoanDate();
+
+    Boolean getReturned();
+}
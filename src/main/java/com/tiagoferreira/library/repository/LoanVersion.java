@@ -0,0 +1,14 @@
+package com.tiagoferreira.library.repository;
+
+import com.tiagoferreira.library.entity.Loan;
+
+/**
+ * Versão do empréstimo e do livro associado; a resposta do empréstimo inclui o livro,
+ * então as duas compõem a ETag.
+ */
+public record LoanVersion(Long loan, Long book) {
+
+    public static LoanVersion of(Loan loan) {
+        return new LoanVersion(loan.getVersion(), loan.getBook() == null ? null : loan.getBook().getVersion());
+    }
+}
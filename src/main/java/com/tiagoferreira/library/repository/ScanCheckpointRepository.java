@@ -0,0 +1,9 @@
+package com.tiagoferreira.library.repository;
+
+import com.tiagoferreira.library.entity.ScanCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ScanCheckpointRepository extends JpaRepository<ScanCheckpoint, String> {
+}
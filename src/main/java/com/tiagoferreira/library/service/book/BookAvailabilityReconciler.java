@@ -0,0 +1,117 @@
+package com.tiagoferreira.library.service.book;
+
+import com.tiagoferreira.library.repository.BookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Confere a disponibilidade denormalizada em BOOK contra o empréstimo em aberto (LOAN.ACTIVE_BOOK_ID) e corrige
+ * as divergências, em blocos por id, cada um na sua própria transação. Um bloco que perde para uma gravação
+ * concorrente é ignorado e revisto na próxima execução.
+ */
+@Component
+public class BookAvailabilityReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(BookAvailabilityReconciler.class);
+
+    private final BookRepository repository;
+
+    private final IBookService bookService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter repaired;
+
+    private final boolean enabled;
+
+    private final int chunkSize;
+
+    public BookAvailabilityReconciler(BookRepository repository,
+                                      IBookService bookService,
+                                      TransactionTemplate transactionTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${library.book.availability.reconcile-enabled:true}") boolean enabled,
+                                      @Value("${library.book.availability.chunk-size:500}") int chunkSize) {
+        this.repository = repository;
+        this.bookService = bookService;
+        this.transactionTemplate = transactionTemplate;
+        this.repaired = Counter.builder("library.book.availability.repaired").register(meterRegistry);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${library.book.availability.reconcile-delay:PT1H}",
+            initialDelayString = "${library.book.availability.reconcile-delay:PT1H}")
+    public void scheduledReconcile() {
+        if (enabled) {
+            var fixed = reconcile();
+            if (fixed > 0) {
+                log.warn("{} livros com disponibilidade divergente corrigidos", fixed);
+            }
+        }
+    }
+
+    /**
+     * Corrige os livros cuja disponibilidade não bate com os empréstimos em aberto.
+     *
+     * @return quantidade de livros corrigidos nesta execução
+     */
+    public int reconcile() {
+        var total = 0;
+        var lastId = 0L;
+        while (true) {
+            var rows = repository.findAvailabilityDrift(lastId, PageRequest.ofSize(chunkSize));
+            if (rows.isEmpty()) {
+                return total;
+            }
+            var ids = rows.stream().map(row -> (Long) row[0]).toList();
+            lastId = ids.get(ids.size() - 1);
+            try {
+                var fixed = transactionTemplate.execute(status -> repairChunk(ids));
+                if (fixed != null) {
+                    repaired.increment(fixed);
+                    total += fixed;
+                }
+            } catch (OptimisticLockingFailureException e) {
+                log.debug("Bloco de livros {}-{} alterado durante a reconciliação", ids.get(0), lastId, e);
+            }
+            if (rows.size() < chunkSize) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * Bloqueia os livros do bloco e só então relê a divergência: um empréstimo gravado desde a primeira leitura já está
+     * visível, e um em andamento termina antes (ele também grava o livro), então a correção não o desfaz.
+     * A leitura com bloqueio vem do banco, e não do cache de segundo nível, que não enxerga gravações por fora
+     * da aplicação.
+     */
+    private int repairChunk(List<Long> ids) {
+        repository.findAllForUpdate(ids);
+        var available = new ArrayList<Long>();
+        var fixed = 0;
+        for (var row : repository.findAvailabilityDrift(ids)) {
+            var bookId = (Long) row[0];
+            if (row[1] == null) {
+                available.add(bookId);
+            } else {
+                bookService.markLoaned(bookId, (Long) row[1]);
+            }
+            fixed++;
+        }
+        bookService.markAvailable(available);
+        return fixed;
+    }
+}
@@ -0,0 +1,25 @@
+package com.tiagoferreira.library.service.book;
+
+import com.tiagoferreira.library.exception.DomainException;
+import com.tiagoferreira.library.model.book.BookRequest;
+
+/**
+ * Regras de validação de livros compartilhadas pelas implementações bloqueante e reativa.
+ */
+public final class BookRules {
+
+    public static final String NOT_FOUND = "Livro não encontrado";
+
+    public static final String NOME_REQUIRED = "Livro não pode ser nulo";
+
+    public static final String ISBN_TAKEN = "ISBN já cadastrado";
+
+    private BookRules() {
+    }
+
+    public static void validate(BookRequest request) {
+        if (request.getNome() == null) {
+            throw new DomainException(NOME_REQUIRED);
+        }
+    }
+}
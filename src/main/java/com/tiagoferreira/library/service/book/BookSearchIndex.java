@@ -0,0 +1,136 @@
+package com.tiagoferreira.library.service.book;
+
+import com.tiagoferreira.library.repository.BookRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória sobre título e autor dos livros. Os termos são normalizados
+ * (minúsculas, sem acentos) e mantidos ordenados, o que permite buscar por prefixo sem varrer o catálogo.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int TITLE_WEIGHT = 2;
+
+    private static final int AUTHOR_WEIGHT = 1;
+
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private static final double PREFIX_FACTOR = 0.5;
+
+    private final BookRepository repository;
+
+    private final ConcurrentSkipListMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+
+    private final Map<Long, Map<String, Integer>> documents = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    public BookSearchIndex(BookRepository repository) {
+        this.repository = repository;
+    }
+
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        try (var books = repository.streamAllForSearch()) {
+            books.forEach(book -> index(book.getId(), book.getNome(), book.getAutor()));
+        }
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized void index(Long id, String nome, String autor) {
+        remove(id);
+
+        var terms = new HashMap<String, Integer>();
+        tokenize(nome).forEach(term -> terms.merge(term, TITLE_WEIGHT, Integer::sum));
+        tokenize(autor).forEach(term -> terms.merge(term, AUTHOR_WEIGHT, Integer::sum));
+        if (terms.isEmpty()) {
+            return;
+        }
+
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(id, weight));
+        documents.put(id, terms);
+    }
+
+    public synchronized void remove(Long id) {
+        var terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (var term : terms.keySet()) {
+            postings.computeIfPresent(term, (key, docs) -> {
+                docs.remove(id);
+                return docs.isEmpty() ? null : docs;
+            });
+        }
+    }
+
+    public List<Long> search(String query, int limit) {
+        var queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        var total = Math.max(1, documents.size());
+        Map<Long, Double> scores = null;
+
+        for (var queryTerm : queryTerms) {
+            var termScores = new HashMap<Long, Double>();
+            collect(queryTerm, postings.get(queryTerm), 1.0, total, termScores);
+            if (queryTerm.length() >= MIN_PREFIX_LENGTH) {
+                postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, true)
+                        .forEach((term, docs) -> collect(term, docs, PREFIX_FACTOR, total, termScores));
+            }
+
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private void collect(String term, Map<Long, Integer> docs, double factor, int total, Map<Long, Double> termScores) {
+        if (docs == null || docs.isEmpty()) {
+            return;
+        }
+        var idf = Math.log(1.0 + (double) total / docs.size());
+        docs.forEach((id, weight) -> termScores.merge(id, weight * idf * factor, Math::max));
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        var normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARATORS.split(normalized))
+                .filter(term -> !term.isEmpty())
+                .toList();
+    }
+}
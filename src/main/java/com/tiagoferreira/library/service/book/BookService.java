@@ -1,25 +1,95 @@
 package com.tiagoferreira.library.service.book;
 
+import com.tiagoferreira.library.config.CacheConfig;
 import com.tiagoferreira.library.entity.Book;
 import com.tiagoferreira.library.exception.DomainException;
+import com.tiagoferreira.library.exception.PreconditionFailedException;
+import com.tiagoferreira.library.model.CursorPage;
+import com.tiagoferreira.library.model.CursorToken;
+import com.tiagoferreira.library.model.book.BookBatchItemResponse;
+import com.tiagoferreira.library.model.book.BookBatchResponse;
 import com.tiagoferreira.library.model.book.BookRequest;
 import com.tiagoferreira.library.repository.BookRepository;
+import com.tiagoferreira.library.service.stats.IStatsService;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 @Service
 public class BookService implements IBookService {
 
+    private static final int MAX_CURSOR_SIZE = 1000;
+
+    private static final int MAX_SEARCH_LIMIT = 100;
+
     private final BookRepository repository;
 
-    public BookService(BookRepository repository) {
+    private final IsbnFilter isbnFilter;
+
+    private final BookSearchIndex searchIndex;
+
+    private final IStatsService statistics;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    private final int batchChunkSize;
+
+    private final int batchMaxItems;
+
+    public BookService(BookRepository repository,
+                       IsbnFilter isbnFilter,
+                       BookSearchIndex searchIndex,
+                       IStatsService statistics,
+                       EntityManager entityManager,
+                       TransactionTemplate transactionTemplate,
+                       ObjectProvider<CacheManager> cacheManager,
+                       @Value("${library.book.batch.chunk-size:500}") int batchChunkSize,
+                       @Value("${library.book.batch.max-items:50000}") int batchMaxItems) {
         this.repository = repository;
+        this.isbnFilter = isbnFilter;
+        this.searchIndex = searchIndex;
+        this.statistics = statistics;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.batchChunkSize = batchChunkSize;
+        this.batchMaxItems = batchMaxItems;
     }
 
     @Override
+    @Transactional
     public Book create(BookRequest request) {
         validadeCreate(request);
 
@@ -28,51 +98,313 @@ public class BookService implements IBookService {
         book.setAutor(request.getAutor());
         book.setIsbn(request.getIsbn());
 
-        return repository.save(book);
+        var saved = saveWithUniqueIsbn(book);
+        afterCommit(() -> statistics.bookCreated(saved.getAutor()));
+        return saved;
+    }
+
+    @Override
+    public BookBatchResponse createAll(List<BookRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new DomainException("Lote de livros vazio");
+        }
+        if (requests.size() > batchMaxItems) {
+            throw new DomainException("Lote de livros excede o limite de " + batchMaxItems + " itens");
+        }
+
+        var items = new ArrayList<BookBatchItemResponse>(requests.size());
+        for (int from = 0; from < requests.size(); from += batchChunkSize) {
+            var chunk = requests.subList(from, Math.min(from + batchChunkSize, requests.size()));
+            items.addAll(createChunk(chunk, from));
+        }
+
+        var created = (int) items.stream().filter(BookBatchItemResponse::isSuccess).count();
+        return new BookBatchResponse(created, items.size() - created, items);
+    }
+
+    private List<BookBatchItemResponse> createChunk(List<BookRequest> chunk, int offset) {
+        var results = new BookBatchItemResponse[chunk.size()];
+        var books = new ArrayList<Book>(chunk.size());
+        var positions = new ArrayList<Integer>(chunk.size());
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                var candidates = chunk.stream().map(BookRequest::getIsbn).filter(isbnFilter::mightContain).toList();
+                var existing = candidates.isEmpty() ? new HashSet<String>() : new HashSet<>(repository.findExistingIsbns(candidates));
+                var seen = new HashSet<String>();
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    var request = chunk.get(i);
+                    if (request.getNome() == null) {
+                        results[i] = failure(offset + i, request, BookRules.NOME_REQUIRED);
+                    } else if (request.getIsbn() != null && (existing.contains(request.getIsbn()) || !seen.add(request.getIsbn()))) {
+                        results[i] = failure(offset + i, request, BookRules.ISBN_TAKEN);
+                    } else {
+                        books.add(Book.builder()
+                                .nome(request.getNome())
+                                .autor(request.getAutor())
+                                .isbn(request.getIsbn())
+                                .build());
+                        positions.add(i);
+                    }
+                }
+
+                repository.saveAll(books);
+                repository.flush();
+                entityManager.clear();
+                books.forEach(book -> isbnFilter.add(book.getIsbn()));
+                afterCommit(() -> books.forEach(book -> {
+                    searchIndex.index(book.getId(), book.getNome(), book.getAutor());
+                    statistics.bookCreated(book.getAutor());
+                }));
+            });
+        } catch (DataAccessException | TransactionException e) {
+            for (int i = 0; i < chunk.size(); i++) {
+                if (results[i] == null) {
+                    results[i] = failure(offset + i, chunk.get(i), "Falha ao gravar lote");
+                }
+            }
+            return List.of(results);
+        }
+
+        for (int j = 0; j < books.size(); j++) {
+            int i = positions.get(j);
+            results[i] = BookBatchItemResponse.builder()
+                    .index(offset + i)
+                    .isbn(chunk.get(i).getIsbn())
+                    .id(books.get(j).getId())
+                    .success(true)
+                    .build();
+        }
+        return List.of(results);
+    }
+
+    private BookBatchItemResponse failure(int index, BookRequest request, String message) {
+        return BookBatchItemResponse.builder()
+                .index(index)
+                .isbn(request.getIsbn())
+                .success(false)
+                .message(message)
+                .build();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.BOOKS, key = "#id")
     public Book getById(Long id) {
-        return repository.findById(id).orElseThrow(() -> new DomainException("Livro não encontrado"));
+        return repository.findById(id).orElseThrow(() -> new DomainException(BookRules.NOT_FOUND));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Long getVersion(Long id) {
+        var manager = cacheManager.getIfAvailable();
+        var cache = manager == null ? null : manager.getCache(CacheConfig.BOOKS);
+        var cached = cache == null ? null : cache.get(id, Book.class);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        return repository.findVersionById(id).orElse(null);
     }
 
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.LOANS, allEntries = true)
+    })
     public void delete(Long id) {
-        if (!repository.existsById(id)) {
-            throw new DomainException("Livro não encontrado");
+        var book = repository.findById(id).orElseThrow(() -> new DomainException(BookRules.NOT_FOUND));
+        repository.delete(book);
+        afterCommit(() -> {
+            searchIndex.remove(id);
+            statistics.bookDeleted(book.getAutor());
+        });
+    }
+
+    @Override
+    @Transactional
+    public Book lockForLoan(Long bookId) {
+        return repository.findForUpdate(bookId).orElseThrow(() -> new DomainException(BookRules.NOT_FOUND));
+    }
+
+    @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#bookId"),
+            @CacheEvict(cacheNames = CacheConfig.LOANS, allEntries = true)
+    })
+    public Book markLoaned(Long bookId, Long loanId) {
+        var book = repository.findById(bookId).orElseThrow(() -> new DomainException(BookRules.NOT_FOUND));
+        book.setAvailable(false);
+        book.setCurrentLoanId(loanId);
+        return book;
+    }
+
+    @Override
+    @Transactional
+    public void markAvailable(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        for (var book : repository.findAllById(bookIds)) {
+            book.setAvailable(true);
+            book.setCurrentLoanId(null);
+        }
+
+        var manager = cacheManager.getIfAvailable();
+        if (manager == null) {
+            return;
+        }
+        var books = manager.getCache(CacheConfig.BOOKS);
+        if (books != null) {
+            bookIds.forEach(books::evict);
+        }
+        var loans = manager.getCache(CacheConfig.LOANS);
+        if (loans != null) {
+            loans.clear();
         }
-        repository.deleteById(id);
     }
 
     @Override
-    public Book update(BookRequest request, Long id) {
-        if (!repository.existsById(id)) {
-            throw new DomainException("Livro não encontrado");
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.BOOKS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.LOANS, allEntries = true)
+    })
+    public Book update(BookRequest request, Long id, Long expectedVersion) {
+        var book = repository.findById(id).orElseThrow(() -> new DomainException(BookRules.NOT_FOUND));
+        if (expectedVersion != null && !expectedVersion.equals(book.getVersion())) {
+            throw new PreconditionFailedException("Livro alterado por outra requisição");
         }
-        var book = repository.findById(id).orElseThrow(() -> new DomainException("Livro não encontrado"));
+        var previousAutor = book.getAutor();
         book.setAutor(request.getAutor());
         book.setNome(request.getNome());
         book.setIsbn(request.getIsbn());
-        return repository.save(book);
+        var saved = saveWithUniqueIsbn(book);
+        afterCommit(() -> statistics.bookUpdated(previousAutor, saved.getAutor()));
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public <S> Page<S> findAll(Pageable pageable, Function<Book, ? extends S> functionMapper) {
-        return repository.findAll(pageable).map(functionMapper);
+        return PageableExecutionUtils.getPage(repository.findPage(pageable), pageable, repository::countForPage)
+                .map(functionMapper);
     }
 
-    public void validadeCreate(BookRequest request) {
+    @Override
+    @Transactional(readOnly = true)
+    public <S> Slice<S> findSlice(Pageable pageable, Function<Book, ? extends S> functionMapper) {
+        return repository.findAllBy(pageable).map(functionMapper);
+    }
 
-        if (request.getNome() == null) {
-            throw new DomainException("Livro não pode ser nulo");
+    @Override
+    @Transactional(readOnly = true)
+    public <S> CursorPage<S> findAfter(String cursor, int size, Function<Book, ? extends S> functionMapper) {
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            throw new DomainException("Tamanho de página inválido");
         }
 
+        var slice = repository.findNextPage(CursorToken.decodeId(cursor), PageRequest.ofSize(size));
+        var content = slice.getContent();
+        var next = slice.hasNext() ? CursorToken.encode(content.get(content.size() - 1).getId()) : null;
+
+        return new CursorPage<>(slice.<S>map(functionMapper).getContent(), next);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <S> CursorPage<S> findAvailable(String cursor, int size, Function<Book, ? extends S> functionMapper) {
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            throw new DomainException("Tamanho de página inválido");
+        }
+
+        var slice = repository.findAvailableAfter(CursorToken.decodeId(cursor), PageRequest.ofSize(size));
+        var content = slice.getContent();
+        var next = slice.hasNext() ? CursorToken.encode(content.get(content.size() - 1).getId()) : null;
+
+        return new CursorPage<>(slice.<S>map(functionMapper).getContent(), next);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <S> void export(Function<Book, ? extends S> functionMapper, Consumer<? super S> consumer) {
+        try (var books = repository.streamAll()) {
+            books.forEach(book -> {
+                consumer.accept(functionMapper.apply(book));
+                entityManager.detach(book);
+            });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <S> List<S> search(String query, int limit, Function<Book, ? extends S> functionMapper) {
+        if (query == null || query.isBlank()) {
+            throw new DomainException("Busca não pode ser vazia");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new DomainException("Limite de busca inválido");
+        }
+
+        if (!searchIndex.isReady()) {
+            return repository.searchByNomeOrAutor(query.trim(), PageRequest.ofSize(limit)).stream()
+                    .<S>map(functionMapper)
+                    .toList();
+        }
+
+        var ids = searchIndex.search(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Book> books = new HashMap<>();
+        repository.findAllById(ids).forEach(book -> books.put(book.getId(), book));
+
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .<S>map(functionMapper)
+                .toList();
+    }
+
+    public void validadeCreate(BookRequest request) {
+
+        BookRules.validate(request);
+
         if (isbnIsExists(request.getIsbn())) {
-            throw new DomainException("ISBN já cadastrado");
+            throw new DomainException(BookRules.ISBN_TAKEN);
         }
     }
 
     private boolean isbnIsExists(String isbn) {
-        return repository.existsByIsbn(isbn);
+        return isbnFilter.mightContain(isbn) && repository.existsByIsbn(isbn);
+    }
+
+    private Book saveWithUniqueIsbn(Book book) {
+        try {
+            var saved = repository.saveAndFlush(book);
+            isbnFilter.add(saved.getIsbn());
+            afterCommit(() -> searchIndex.index(saved.getId(), saved.getNome(), saved.getAutor()));
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            throw new DomainException(BookRules.ISBN_TAKEN);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new PreconditionFailedException("Livro alterado por outra requisição");
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
@@ -0,0 +1,56 @@
+package com.tiagoferreira.library.service.book;
+
+import com.tiagoferreira.library.service.stats.IStatsService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aquece o filtro de ISBNs, o índice de busca e as estatísticas a partir do catálogo. Com `library.warm-up.async`
+ * o aquecimento roda em segundo plano e a aplicação atende sem esperar a leitura do catálogo inteiro;
+ * até lá o filtro consulta o banco, a busca usa LIKE e as estatísticas contam só as gravações novas.
+ */
+@Component
+public class BookWarmUp {
+
+    private final IsbnFilter isbnFilter;
+
+    private final BookSearchIndex searchIndex;
+
+    private final IStatsService statistics;
+
+    private final TaskExecutor executor;
+
+    private final boolean async;
+
+    public BookWarmUp(IsbnFilter isbnFilter,
+                      BookSearchIndex searchIndex,
+                      IStatsService statistics,
+                      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor executor,
+                      @Value("${library.warm-up.async:false}") boolean async) {
+        this.isbnFilter = isbnFilter;
+        this.searchIndex = searchIndex;
+        this.statistics = statistics;
+        this.executor = executor;
+        this.async = async;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (async) {
+            executor.execute(this::warmUp);
+        } else {
+            warmUp();
+        }
+    }
+
+    private void warmUp() {
+        isbnFilter.warmUp();
+        searchIndex.warmUp();
+        statistics.rebuild();
+    }
+}
@@ -1,21 +1,61 @@
 package com.tiagoferreira.library.service.book;
 
 import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.model.CursorPage;
+import com.tiagoferreira.library.model.book.BookBatchResponse;
 import com.tiagoferreira.library.model.book.BookRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public interface IBookService {
 
     Book create(BookRequest request);
 
+    BookBatchResponse createAll(List<BookRequest> requests);
+
     Book getById(Long id);
 
+    /**
+     * Versão atual do livro, lida do cache ou de uma consulta só da coluna de versão; nula se o livro não existe.
+     */
+    Long getVersion(Long id);
+
     void delete(Long id);
 
-    Book update(BookRequest request, Long id);
+    /**
+     * Lê o livro do banco com bloqueio, na transação de quem chama, para decidir um empréstimo pelo estado atual
+     * e não pela cópia em cache de {@link #getById}.
+     */
+    Book lockForLoan(Long bookId);
+
+    /**
+     * Marca o livro como emprestado a {@code loanId}, na transação de quem chama, e devolve a instância gerenciada.
+     * Limpa também o cache de empréstimos, que guardam o livro (e a sua versão na ETag).
+     */
+    Book markLoaned(Long bookId, Long loanId);
+
+    /**
+     * Marca os livros como disponíveis, na transação de quem chama. Limpa também o cache de empréstimos.
+     */
+    void markAvailable(Collection<Long> bookIds);
+
+    Book update(BookRequest request, Long id, Long expectedVersion);
 
     <S> Page<S> findAll(Pageable pageable, Function<Book, ? extends S> functionMapper);
+
+    <S> Slice<S> findSlice(Pageable pageable, Function<Book, ? extends S> functionMapper);
+
+    <S> CursorPage<S> findAfter(String cursor, int size, Function<Book, ? extends S> functionMapper);
+
+    <S> CursorPage<S> findAvailable(String cursor, int size, Function<Book, ? extends S> functionMapper);
+
+    <S> void export(Function<Book, ? extends S> functionMapper, Consumer<? super S> consumer);
+
+    <S> List<S> search(String query, int limit, Function<Book, ? extends S> functionMapper);
 }
@@ -0,0 +1,110 @@
+package com.tiagoferreira.library.service.book;
+
+import com.tiagoferreira.library.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom dos ISBNs cadastrados. Uma resposta negativa garante que o ISBN é novo e
+ * dispensa a consulta ao banco; uma positiva pode ser falsa e cai na consulta pelo índice único.
+ * Exclusões não removem bits, apenas aumentam a chance de falso positivo até o próximo aquecimento.
+ */
+@Component
+public class IsbnFilter {
+
+    private final BookRepository repository;
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    private volatile boolean ready;
+
+    public IsbnFilter(BookRepository repository,
+                      @Value("${library.book.isbn-filter.expected-insertions:1000000}") long expectedInsertions,
+                      @Value("${library.book.isbn-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.repository = repository;
+        var optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        var words = (int) Math.max(1, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        try (var isbns = repository.streamAllIsbns()) {
+            isbns.forEach(this::add);
+        }
+        ready = true;
+    }
+
+    public void add(String isbn) {
+        var normalized = normalize(isbn);
+        if (normalized == null) {
+            return;
+        }
+        var h1 = hash(normalized, 0x9E3779B97F4A7C15L);
+        var h2 = hash(normalized, 0xC2B2AE3D27D4EB4FL);
+        for (int i = 0; i < hashCount; i++) {
+            var bit = Math.floorMod(h1 + i * h2, bitCount);
+            var word = (int) (bit >>> 6);
+            var mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(String isbn) {
+        var normalized = normalize(isbn);
+        if (normalized == null) {
+            return false;
+        }
+        if (!ready) {
+            return true;
+        }
+        var h1 = hash(normalized, 0x9E3779B97F4A7C15L);
+        var h2 = hash(normalized, 0xC2B2AE3D27D4EB4FL);
+        for (int i = 0; i < hashCount; i++) {
+            var bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String normalize(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        var normalized = isbn.replaceAll("[^0-9A-Za-z]", "").toUpperCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private static long hash(String value, long seed) {
+        var h = seed;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
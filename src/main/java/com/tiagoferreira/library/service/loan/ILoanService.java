@@ -1,23 +1,60 @@
 package com.tiagoferreira.library.service.loan;
 
 import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.entity.LoanArchive;
+import com.tiagoferreira.library.model.CursorPage;
 import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.model.loan.LoanReturnRequest;
+import com.tiagoferreira.library.model.loan.LoanReturnResponse;
+import com.tiagoferreira.library.repository.LoanVersion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public interface ILoanService {
 
     Loan create(LoanRequest request);
 
-    Loan retornedBook(Long id, LoanRequest request);
+    Loan retornedBook(Long id, LoanRequest request, Long expectedVersion);
+
+    LoanReturnResponse returnAll(LoanReturnRequest request);
 
     void delete(Long id);
 
-    Loan update(Long id, LoanRequest request);
+    Loan update(Long id, LoanRequest request, Long expectedVersion);
 
     <S> Page<S> findAll(Pageable pageable, Function<Loan, ? extends S> functionMapper);
 
+    <S> Slice<S> findSlice(Pageable pageable, Function<Loan, ? extends S> functionMapper);
+
+    <S> CursorPage<S> findAfter(String cursor, int size, Function<Loan, ? extends S> functionMapper);
+
+    <S> CursorPage<S> findOverdue(String cursor, int size, Function<Loan, ? extends S> functionMapper);
+
+    <S> void export(Function<Loan, ? extends S> functionMapper, Consumer<? super S> consumer);
+
+    /**
+     * Empréstimos já movidos para LOAN_ARCHIVE, paginados por cursor; as demais consultas leem só LOAN.
+     */
+    <S> CursorPage<S> findArchivedAfter(String cursor, int size, Function<LoanArchive, ? extends S> functionMapper);
+
+    /**
+     * Exporta os empréstimos de LOAN seguidos dos arquivados.
+     */
+    <S> void exportWithArchive(Function<Loan, ? extends S> loanMapper,
+                               Function<LoanArchive, ? extends S> archiveMapper,
+                               Consumer<? super S> consumer);
+
     Loan findById(Long id);
+
+    <S> List<S> findOpenByCustomer(String email, Function<Loan, ? extends S> functionMapper);
+
+    /**
+     * Versões do empréstimo e do livro, lidas do cache ou de uma consulta só das colunas de versão; nula se o empréstimo não existe.
+     */
+    LoanVersion getVersion(Long id);
 }
@@ -0,0 +1,148 @@
+package com.tiagoferreira.library.service.loan;
+
+import com.tiagoferreira.library.config.CacheConfig;
+import com.tiagoferreira.library.repository.LoanArchiveRepository;
+import com.tiagoferreira.library.repository.LoanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Move para LOAN_ARCHIVE os empréstimos devolvidos há mais de {@code library.loan.archive.after-days} dias,
+ * mantendo LOAN (e seus índices) do tamanho dos empréstimos recentes. Cada lote bloqueia os empréstimos,
+ * copia com um insert-select e os remove de LOAN na mesma transação; entre os lotes há uma pausa para não
+ * disputar o banco com as requisições.
+ */
+@Component
+public class LoanArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanArchiver.class);
+
+    private final LoanRepository loanRepository;
+
+    private final LoanArchiveRepository archiveRepository;
+
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter archived;
+
+    private final boolean enabled;
+
+    private final int afterDays;
+
+    private final int batchSize;
+
+    private final int maxBatches;
+
+    private final Duration pause;
+
+    public LoanArchiver(LoanRepository loanRepository,
+                        LoanArchiveRepository archiveRepository,
+                        ObjectProvider<CacheManager> cacheManager,
+                        TransactionTemplate transactionTemplate,
+                        MeterRegistry meterRegistry,
+                        @Value("${library.loan.archive.enabled:true}") boolean enabled,
+                        @Value("${library.loan.archive.after-days:365}") int afterDays,
+                        @Value("${library.loan.archive.batch-size:500}") int batchSize,
+                        @Value("${library.loan.archive.max-batches:1000}") int maxBatches,
+                        @Value("${library.loan.archive.pause:PT0.1S}") Duration pause) {
+        this.loanRepository = loanRepository;
+        this.archiveRepository = archiveRepository;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = transactionTemplate;
+        this.archived = Counter.builder("library.loan.archive.archived").register(meterRegistry);
+        this.enabled = enabled;
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.pause = pause;
+    }
+
+    @Scheduled(fixedDelayString = "${library.loan.archive.delay:PT6H}",
+            initialDelayString = "${library.loan.archive.delay:PT6H}")
+    public void scheduledArchive() {
+        if (enabled) {
+            var moved = archive();
+            if (moved > 0) {
+                log.info("{} empréstimos devolvidos movidos para o arquivo", moved);
+            }
+        }
+    }
+
+    /**
+     * Arquiva até {@code max-batches} lotes de empréstimos devolvidos antes do corte.
+     *
+     * @return quantidade de empréstimos arquivados nesta execução
+     */
+    public int archive() {
+        var cutoff = LocalDate.now().minusDays(afterDays);
+        var total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            if (batch > 0 && !sleep()) {
+                break;
+            }
+            Integer moved;
+            try {
+                moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            } catch (ConcurrencyFailureException e) {
+                log.debug("Lote de arquivamento desfeito por gravação concorrente; segue na próxima execução", e);
+                break;
+            }
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived.increment(moved);
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDate cutoff) {
+        var ids = loanRepository.lockArchivable(cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        var copied = archiveRepository.copyFromLoans(ids, Instant.now());
+        var deleted = loanRepository.deleteArchived(ids);
+        if (copied != ids.size() || deleted != ids.size()) {
+            throw new ConcurrencyFailureException("Empréstimos alterados durante o arquivamento");
+        }
+
+        var manager = cacheManager.getIfAvailable();
+        var cache = manager == null ? null : manager.getCache(CacheConfig.LOANS);
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+        return ids.size();
+    }
+
+    private boolean sleep() {
+        if (pause.isZero() || pause.isNegative()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
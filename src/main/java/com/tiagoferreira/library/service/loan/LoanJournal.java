@@ -0,0 +1,300 @@
+package com.tiagoferreira.library.service.loan;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal append-only das mudanças de estado dos empréstimos, em segmentos de tamanho fixo mapeados em memória.
+ * Cada registro é [tamanho][CRC32C][evento]; a leitura para no primeiro registro vazio ou corrompido.
+ * A gravação é uma cópia para o mapeamento, feita após o commit; o fsync é agrupado por uma thread de fundo
+ * a cada {@code flush-interval}, então uma queda pode perder os eventos desse intervalo (o banco continua sendo a fonte).
+ * Na inicialização os segmentos são relidos para reconstruir a {@link LoanJournalProjection}.
+ */
+@Component
+@ConditionalOnProperty(name = "library.loan.journal.enabled", havingValue = "true")
+public class LoanJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanJournal.class);
+
+    private static final String SUFFIX = ".journal";
+
+    private static final int HEADER = 8;
+
+    private static final int END_MARKER = 4;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final LoanJournalProjection projection;
+
+    private final List<MappedByteBuffer> sealed = new ArrayList<>();
+
+    private final ScheduledExecutorService flusher;
+
+    private MappedByteBuffer segment;
+
+    private long segmentIndex;
+
+    private int position;
+
+    private int flushed;
+
+    public LoanJournal(@Value("${library.loan.journal.dir:./data/journal}") Path directory,
+                       @Value("${library.loan.journal.segment-size:67108864}") int segmentSize,
+                       @Value("${library.loan.journal.flush-interval:10ms}") Duration flushInterval,
+                       @Value("${library.loan.journal.history-size:100}") int historySize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.projection = new LoanJournalProjection(historySize);
+        try {
+            Files.createDirectories(directory);
+            var segments = segments(directory);
+            var events = 0L;
+            for (var path : segments) {
+                var end = replaySegment(path, projection::apply);
+                events += end.events();
+                segmentIndex = index(path);
+                position = end.position();
+            }
+            if (segments.isEmpty() || position + END_MARKER > segmentSize) {
+                position = 0;
+                segmentIndex++;
+            }
+            openSegment(segmentIndex);
+            log.info("Journal de empréstimos: {} eventos relidos de {} segmentos", events, segments.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "loan-journal-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var interval = Math.max(1, flushInterval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Relê todos os segmentos de {@code directory} em ordem, sem abrir o journal para escrita.
+     */
+    public static long replay(Path directory, Consumer<LoanJournalEvent> consumer) throws IOException {
+        var events = 0L;
+        for (var path : segments(directory)) {
+            events += replaySegment(path, consumer).events();
+        }
+        return events;
+    }
+
+    public LoanJournalProjection projection() {
+        return projection;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLoanEvent(LoanJournalEvent event) {
+        append(event);
+    }
+
+    public synchronized void append(LoanJournalEvent event) {
+        var payload = encode(event);
+        var size = HEADER + payload.length;
+        if (size + END_MARKER > segmentSize) {
+            throw new IllegalArgumentException("Evento maior que o segmento do journal");
+        }
+        if (position + size + END_MARKER > segmentSize) {
+            rollover();
+        }
+
+        var crc = new CRC32C();
+        crc.update(payload);
+        segment.put(position + HEADER, payload);
+        segment.putInt(position + HEADER + payload.length, 0);
+        segment.putInt(position + 4, (int) crc.getValue());
+        segment.putInt(position, payload.length);
+        position += size;
+        projection.apply(event);
+    }
+
+    /**
+     * Força para o disco os segmentos fechados e o trecho ainda não sincronizado do segmento atual.
+     */
+    public void flush() {
+        MappedByteBuffer current;
+        List<MappedByteBuffer> toSeal;
+        int from;
+        int to;
+        synchronized (this) {
+            current = segment;
+            from = flushed;
+            to = position;
+            flushed = position;
+            toSeal = sealed.isEmpty() ? List.of() : List.copyOf(sealed);
+            sealed.clear();
+        }
+        toSeal.forEach(MappedByteBuffer::force);
+        if (to > from) {
+            current.force(from, to - from);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdown();
+        flush();
+    }
+
+    private void rollover() {
+        sealed.add(segment);
+        position = 0;
+        openSegment(segmentIndex + 1);
+    }
+
+    private void openSegment(long index) {
+        try (var channel = FileChannel.open(directory.resolve(name(index)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            segmentIndex = index;
+            flushed = 0;
+            if (position + END_MARKER <= segmentSize) {
+                segment.putInt(position, 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SegmentEnd replaySegment(Path path, Consumer<LoanJournalEvent> consumer) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            var position = 0;
+            var events = 0L;
+            var crc = new CRC32C();
+            while (position + HEADER <= buffer.limit()) {
+                var length = buffer.getInt(position);
+                if (length <= 0 || position + HEADER + length > buffer.limit()) {
+                    break;
+                }
+                var payload = new byte[length];
+                buffer.get(position + HEADER, payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                    break;
+                }
+                consumer.accept(decode(ByteBuffer.wrap(payload)));
+                position += HEADER + length;
+                events++;
+            }
+            return new SegmentEnd(position, events);
+        }
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static String name(long index) {
+        return String.format("loans-%012d%s", index, SUFFIX);
+    }
+
+    private static long index(Path path) {
+        var name = path.getFileName().toString();
+        return Long.parseLong(name.substring("loans-".length(), name.length() - SUFFIX.length()));
+    }
+
+    private static byte[] encode(LoanJournalEvent event) {
+        var customer = utf8(event.customer());
+        var customerEmail = utf8(event.customerEmail());
+        var buffer = ByteBuffer.allocate(38 + length(customer) + length(customerEmail));
+        buffer.put((byte) event.type().ordinal())
+                .putLong(event.timestamp().toEpochMilli())
+                .putLong(event.loanId())
+                .putLong(event.bookId() == null ? -1 : event.bookId())
+                .putLong(event.loanDate() == null ? Long.MIN_VALUE : event.loanDate().toEpochDay())
+                .put((byte) (event.returned() ? 1 : 0));
+        putString(buffer, customer);
+        putString(buffer, customerEmail);
+        return buffer.array();
+    }
+
+    private static LoanJournalEvent decode(ByteBuffer buffer) {
+        var type = LoanJournalEvent.Type.values()[buffer.get()];
+        var timestamp = Instant.ofEpochMilli(buffer.getLong());
+        var loanId = buffer.getLong();
+        var bookId = buffer.getLong();
+        var loanDate = buffer.getLong();
+        var returned = buffer.get() == 1;
+        return new LoanJournalEvent(type,
+                timestamp,
+                loanId,
+                bookId < 0 ? null : bookId,
+                getString(buffer),
+                getString(buffer),
+                loanDate == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(loanDate),
+                returned);
+    }
+
+    private static byte[] utf8(String value) {
+        var bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes != null && bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Texto grande demais para o journal");
+        }
+        return bytes;
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putShort((short) (value == null ? -1 : value.length));
+        if (value != null) {
+            buffer.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        var length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        var value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private record SegmentEnd(int position, long events) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.tiagoferreira.library.service.loan;
+
+import com.tiagoferreira.library.entity.Loan;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Mudança de estado de um empréstimo gravada no {@link LoanJournal}. Em devoluções em lote apenas
+ * {@code loanId} (e, quando conhecido, {@code bookId}) é preenchido; o restante vem do evento anterior na projeção.
+ */
+public record LoanJournalEvent(Type type,
+                               Instant timestamp,
+                               Long loanId,
+                               Long bookId,
+                               String customer,
+                               String customerEmail,
+                               LocalDate loanDate,
+                               boolean returned) {
+
+    public enum Type {
+        CREATED, RETURNED, UPDATED, DELETED
+    }
+
+    public static LoanJournalEvent of(Type type, Loan loan) {
+        return new LoanJournalEvent(type,
+                Instant.now(),
+                loan.getId(),
+                loan.getBook() == null ? null : loan.getBook().getId(),
+                loan.getCustomer(),
+                loan.getCustomerEmail(),
+                loan.getLoanDate(),
+                Boolean.TRUE.equals(loan.getReturned()));
+    }
+
+    public static LoanJournalEvent returned(Long loanId, Long bookId) {
+        return new LoanJournalEvent(Type.RETURNED, Instant.now(), loanId, bookId, null, null, null, true);
+    }
+}
@@ -0,0 +1,79 @@
+package com.tiagoferreira.library.service.loan;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Estado reconstruído a partir do {@link LoanJournal}: empréstimo ativo de cada livro e histórico por cliente
+ * e por livro ("quem estava com o livro X e quando"), sem consultar o banco. Cada histórico guarda só os
+ * {@code historySize} eventos mais recentes; o histórico completo fica nos segmentos do journal.
+ */
+public class LoanJournalProjection {
+
+    private final Map<Long, LoanJournalEvent> openLoans = new HashMap<>();
+
+    private final Map<Long, Long> loanByBook = new HashMap<>();
+
+    private final Map<String, Deque<LoanJournalEvent>> historyByCustomer = new HashMap<>();
+
+    private final Map<Long, Deque<LoanJournalEvent>> historyByBook = new HashMap<>();
+
+    private final int historySize;
+
+    public LoanJournalProjection(int historySize) {
+        if (historySize < 1) {
+            throw new IllegalArgumentException("Tamanho do histórico deve ser positivo");
+        }
+        this.historySize = historySize;
+    }
+
+    public synchronized void apply(LoanJournalEvent event) {
+        var previous = openLoans.remove(event.loanId());
+        if (previous != null) {
+            loanByBook.remove(previous.bookId(), event.loanId());
+        }
+
+        var bookId = event.bookId() != null ? event.bookId() : previous == null ? null : previous.bookId();
+        var customer = event.customer() != null ? event.customer() : previous == null ? null : previous.customer();
+        if (customer != null) {
+            record(historyByCustomer.computeIfAbsent(customer, key -> new ArrayDeque<>()), event);
+        }
+        if (bookId != null) {
+            record(historyByBook.computeIfAbsent(bookId, key -> new ArrayDeque<>()), event);
+        }
+
+        var open = (event.type() == LoanJournalEvent.Type.CREATED || event.type() == LoanJournalEvent.Type.UPDATED)
+                && !event.returned();
+        if (open && bookId != null) {
+            openLoans.put(event.loanId(), event);
+            loanByBook.put(bookId, event.loanId());
+        }
+    }
+
+    public synchronized boolean isAvailable(Long bookId) {
+        return !loanByBook.containsKey(bookId);
+    }
+
+    public synchronized Optional<Long> activeLoan(Long bookId) {
+        return Optional.ofNullable(loanByBook.get(bookId));
+    }
+
+    public synchronized List<LoanJournalEvent> customerHistory(String customer) {
+        return List.copyOf(historyByCustomer.getOrDefault(customer, new ArrayDeque<>()));
+    }
+
+    public synchronized List<LoanJournalEvent> bookHistory(Long bookId) {
+        return List.copyOf(historyByBook.getOrDefault(bookId, new ArrayDeque<>()));
+    }
+
+    private void record(Deque<LoanJournalEvent> history, LoanJournalEvent event) {
+        if (history.size() == historySize) {
+            history.removeFirst();
+        }
+        history.addLast(event);
+    }
+}
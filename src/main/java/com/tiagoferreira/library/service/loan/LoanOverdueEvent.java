@@ -0,0 +1,6 @@
+package com.tiagoferreira.library.service.loan;
+
+import java.time.LocalDate;
+
+public record LoanOverdueEvent(Long loanId, Long bookId, String customer, String customerEmail, LocalDate loanDate) {
+}
@@ -0,0 +1,28 @@
+package com.tiagoferreira.library.service.loan;
+
+import java.util.Locale;
+
+/**
+ * Mensagens e regras de empréstimo compartilhadas pelas implementações bloqueante e reativa.
+ */
+public final class LoanRules {
+
+    public static final String NOT_FOUND = "Empréstimo não encontrado";
+
+    public static final String BOOK_ALREADY_LOANED = "Livro Já Emprestado";
+
+    public static final String CUSTOMER_LIMIT_REACHED = "Cliente atingiu o limite de empréstimos em aberto";
+
+    private LoanRules() {
+    }
+
+    /**
+     * E-mail como é gravado e consultado: sem espaços nas pontas e em minúsculas.
+     */
+    public static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,76 +1,469 @@
 package com.tiagoferreira.library.service.loan;
 
+import com.tiagoferreira.library.config.CacheConfig;
+import com.tiagoferreira.library.entity.Book;
 import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.entity.LoanArchive;
 import com.tiagoferreira.library.exception.DomainException;
+import com.tiagoferreira.library.exception.PreconditionFailedException;
+import com.tiagoferreira.library.model.CursorPage;
+import com.tiagoferreira.library.model.CursorToken;
 import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.model.loan.LoanReturnRequest;
+import com.tiagoferreira.library.model.loan.LoanReturnResponse;
+import com.tiagoferreira.library.repository.CustomerLoanCounterRepository;
+import com.tiagoferreira.library.repository.LoanArchiveRepository;
 import com.tiagoferreira.library.repository.LoanRepository;
+import com.tiagoferreira.library.repository.LoanVersion;
+import com.tiagoferreira.library.service.book.BookRules;
 import com.tiagoferreira.library.service.book.IBookService;
+import com.tiagoferreira.library.service.stats.IStatsService;
+import com.tiagoferreira.library.service.stats.LoanSnapshot;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 @Service
 public class LoanService implements ILoanService {
 
+    private static final int MAX_CURSOR_SIZE = 1000;
+
     private final LoanRepository repository;
 
+    private final CustomerLoanCounterRepository counterRepository;
+
+    private final LoanArchiveRepository archiveRepository;
+
     private final IBookService bookService;
 
-    public LoanService(LoanRepository repository, IBookService bookService) {
+    private final IStatsService statistics;
+
+    private final EntityManager entityManager;
+
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    private final ApplicationEventPublisher publisher;
+
+    private final int returnsChunkSize;
+
+    private final int returnsMaxItems;
+
+    private final int overdueDays;
+
+    private final int maxOpenLoans;
+
+    public LoanService(LoanRepository repository,
+                       CustomerLoanCounterRepository counterRepository,
+                       LoanArchiveRepository archiveRepository,
+                       IBookService bookService,
+                       IStatsService statistics,
+                       EntityManager entityManager,
+                       ObjectProvider<CacheManager> cacheManager,
+                       ApplicationEventPublisher publisher,
+                       @Value("${library.loan.returns.chunk-size:1000}") int returnsChunkSize,
+                       @Value("${library.loan.returns.max-items:50000}") int returnsMaxItems,
+                       @Value("${library.loan.overdue.days:14}") int overdueDays,
+                       @Value("${library.loan.customer.max-open-loans:0}") int maxOpenLoans) {
         this.repository = repository;
+        this.counterRepository = counterRepository;
+        this.archiveRepository = archiveRepository;
         this.bookService = bookService;
+        this.statistics = statistics;
+        this.entityManager = entityManager;
+        this.cacheManager = cacheManager;
+        this.publisher = publisher;
+        this.returnsChunkSize = returnsChunkSize;
+        this.returnsMaxItems = returnsMaxItems;
+        this.overdueDays = overdueDays;
+        this.maxOpenLoans = maxOpenLoans > 0 ? maxOpenLoans : Integer.MAX_VALUE;
     }
 
     @Override
+    @Transactional
     public Loan create(LoanRequest request) {
-        validateCreate(request);
+        if (request.getIdBook() == null) {
+            throw new DomainException(BookRules.NOT_FOUND);
+        }
+        var book = bookService.lockForLoan(request.getIdBook());
+        validateCreate(book);
 
         var loan = new Loan();
-        loan.setBook(bookService.getById(request.getIdBook()));
+        loan.setBook(book);
         loan.setCustomer(request.getCustomer());
+        loan.setCustomerEmail(LoanRules.normalizeEmail(request.getCustomerEmail()));
         loan.setLoanDate(request.getLoanDate());
-        loan.setReturned(request.getReturned());
+        loan.setReturned(Boolean.TRUE.equals(request.getReturned()));
+        stampReturnedAt(false, loan);
+        moveOpenLoan(null, false, loan);
 
-        return repository.save(loan);
+        var saved = saveWithSingleActiveLoan(loan);
+        moveBook(null, false, saved);
+        publisher.publishEvent(LoanJournalEvent.of(LoanJournalEvent.Type.CREATED, saved));
+        var current = LoanSnapshot.of(saved);
+        afterCommit(() -> statistics.loanChanged(null, current));
+        return saved;
     }
 
-    public void validateCreate(LoanRequest request) {
-        if (repository.existsByBookAndNotReturned(request.getIdBook())) {
-            throw new DomainException("Livro Já Emprestado");
+    public void validateCreate(Book book) {
+        if (!Boolean.TRUE.equals(book.getAvailable())) {
+            throw new DomainException(LoanRules.BOOK_ALREADY_LOANED);
         }
     }
 
     @Override
-    public Loan retornedBook(Long id, LoanRequest request) {
-        var loan = repository.findById(id).orElseThrow(() -> new DomainException("Empréstimo não encontrado"));
-        loan.setReturned(request.getReturned());
-        return repository.save(loan);
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LOANS, key = "#id")
+    public Loan retornedBook(Long id, LoanRequest request, Long expectedVersion) {
+        var loan = repository.findById(id).orElseThrow(() -> new DomainException(LoanRules.NOT_FOUND));
+        checkVersion(loan, expectedVersion);
+        var previous = LoanSnapshot.of(loan);
+        var wasOpen = isOpen(loan);
+        loan.setReturned(Boolean.TRUE.equals(request.getReturned()));
+        stampReturnedAt(wasOpen, loan);
+        moveOpenLoan(loan.getCustomerEmail(), wasOpen, loan);
+        var saved = saveWithSingleActiveLoan(loan);
+        moveBook(previous.bookId(), wasOpen, saved);
+        var type = Boolean.TRUE.equals(saved.getReturned()) ? LoanJournalEvent.Type.RETURNED : LoanJournalEvent.Type.UPDATED;
+        publisher.publishEvent(LoanJournalEvent.of(type, saved));
+        var current = LoanSnapshot.of(saved);
+        afterCommit(() -> statistics.loanChanged(previous, current));
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public LoanReturnResponse returnAll(LoanReturnRequest request) {
+        var byLoan = request.getLoanIds() != null && !request.getLoanIds().isEmpty();
+        var byBook = request.getBookIds() != null && !request.getBookIds().isEmpty();
+        if (byLoan == byBook) {
+            throw new DomainException("Informe os ids dos empréstimos ou dos livros");
+        }
+
+        var ids = new ArrayList<>(new LinkedHashSet<>(byLoan ? request.getLoanIds() : request.getBookIds()));
+        if (ids.size() > returnsMaxItems) {
+            throw new DomainException("Devolução excede o limite de " + returnsMaxItems + " itens");
+        }
+
+        var returned = 0;
+        var notMatched = new ArrayList<Long>();
+        for (int from = 0; from < ids.size(); from += returnsChunkSize) {
+            var chunk = ids.subList(from, Math.min(from + returnsChunkSize, ids.size()));
+
+            var rows = byLoan ? repository.lockOpenByIdIn(chunk) : repository.lockOpenByBookIdIn(chunk);
+            var loanIds = new ArrayList<Long>(rows.size());
+            var bookIds = new ArrayList<Long>(rows.size());
+            var matched = new HashSet<Long>();
+            Map<String, Integer> byCustomer = new HashMap<>();
+            for (var row : rows) {
+                loanIds.add((Long) row[0]);
+                if (row[1] != null) {
+                    bookIds.add((Long) row[1]);
+                }
+                matched.add((Long) row[byLoan ? 0 : 1]);
+                if (row[2] != null) {
+                    byCustomer.merge((String) row[2], 1, Integer::sum);
+                }
+            }
+            chunk.stream().filter(id -> !matched.contains(id)).forEach(notMatched::add);
+
+            if (!loanIds.isEmpty()) {
+                var marked = repository.markReturned(loanIds, LocalDate.now());
+                if (marked != loanIds.size()) {
+                    throw new ConcurrencyFailureException("Empréstimos alterados durante a devolução em lote");
+                }
+                returned += marked;
+                afterCommit(() -> statistics.loansReturned(marked));
+                byCustomer.forEach(counterRepository::release);
+                bookService.markAvailable(bookIds);
+                evictLoans(loanIds);
+                rows.forEach(row -> publisher.publishEvent(LoanJournalEvent.returned((Long) row[0], (Long) row[1])));
+            }
+        }
+
+        return new LoanReturnResponse(returned, notMatched);
     }
 
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LOANS, key = "#id")
     public void delete(Long id) {
-        repository.delete(repository.findById(id).orElseThrow(() -> new DomainException("Empréstimo não encontrado")));
+        var loan = repository.findById(id).orElseThrow(() -> new DomainException(LoanRules.NOT_FOUND));
+        if (isOpen(loan) && loan.getCustomerEmail() != null) {
+            counterRepository.release(loan.getCustomerEmail(), 1);
+        }
+        repository.delete(loan);
+        if (isOpen(loan) && loan.getBook() != null) {
+            bookService.markAvailable(List.of(loan.getBook().getId()));
+        }
+        publisher.publishEvent(LoanJournalEvent.of(LoanJournalEvent.Type.DELETED, loan));
+        var previous = LoanSnapshot.of(loan);
+        afterCommit(() -> statistics.loanChanged(previous, null));
     }
 
     @Override
-    public Loan update(Long id, LoanRequest request) {
-        var loan = repository.findById(id).orElseThrow(() -> new DomainException("Empréstimo não encontrado"));
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LOANS, key = "#id")
+    public Loan update(Long id, LoanRequest request, Long expectedVersion) {
+        var loan = repository.findById(id).orElseThrow(() -> new DomainException(LoanRules.NOT_FOUND));
+        checkVersion(loan, expectedVersion);
+        var previous = LoanSnapshot.of(loan);
+        var previousEmail = loan.getCustomerEmail();
+        var wasOpen = isOpen(loan);
         loan.setBook(bookService.getById(request.getIdBook()));
         loan.setCustomer(request.getCustomer());
+        loan.setCustomerEmail(LoanRules.normalizeEmail(request.getCustomerEmail()));
         loan.setLoanDate(request.getLoanDate());
-        loan.setReturned(request.getReturned());
-        return repository.save(loan);
+        loan.setReturned(Boolean.TRUE.equals(request.getReturned()));
+        stampReturnedAt(wasOpen, loan);
+        moveOpenLoan(previousEmail, wasOpen, loan);
+        var saved = saveWithSingleActiveLoan(loan);
+        moveBook(previous.bookId(), wasOpen, saved);
+        publisher.publishEvent(LoanJournalEvent.of(LoanJournalEvent.Type.UPDATED, saved));
+        var current = LoanSnapshot.of(saved);
+        afterCommit(() -> statistics.loanChanged(previous, current));
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public <S> Page<S> findAll(Pageable pageable, Function<Loan, ? extends S> functionMapper) {
-        return repository.findAll(pageable).map(functionMapper);
+        return PageableExecutionUtils.getPage(repository.findPage(pageable), pageable, repository::countForPage)
+                .map(functionMapper);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <S> Slice<S> findSlice(Pageable pageable, Function<Loan, ? extends S> functionMapper) {
+        return repository.findAllBy(pageable).map(functionMapper);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <S> CursorPage<S> findAfter(String cursor, int size, Function<Loan, ? extends S> functionMapper) {
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            throw new DomainException("Tamanho de página inválido");
+        }
+
+        var slice = repository.findNextPage(CursorToken.decodeId(cursor), PageRequest.ofSize(size));
+        var content = slice.getContent();
+        var next = slice.hasNext() ? CursorToken.encode(content.get(content.size() - 1).getId()) : null;
+
+        return new CursorPage<>(slice.<S>map(functionMapper).getContent(), next);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <S> CursorPage<S> findOverdue(String cursor, int size, Function<Loan, ? extends S> functionMapper) {
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            throw new DomainException("Tamanho de página inválido");
+        }
+
+        var cutoff = LocalDate.now().minusDays(overdueDays);
+        var pageable = PageRequest.ofSize(size);
+        Slice<Loan> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = repository.findOverdue(cutoff, pageable);
+        } else {
+            var keys = CursorToken.decode(cursor, 2);
+            try {
+                slice = repository.findOverdueAfter(cutoff, LocalDate.parse(keys[0]), Long.valueOf(keys[1]), pageable);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new DomainException("Cursor inválido");
+            }
+        }
+
+        var content = slice.getContent();
+        var last = content.isEmpty() ? null : content.get(content.size() - 1);
+        var next = slice.hasNext() ? CursorToken.encode(last.getLoanDate(), last.getId()) : null;
+
+        return new CursorPage<>(slice.<S>map(functionMapper).getContent(), next);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <S> void export(Function<Loan, ? extends S> functionMapper, Consumer<? super S> consumer) {
+        try (var loans = repository.streamAll()) {
+            loans.forEach(loan -> {
+                consumer.accept(functionMapper.apply(loan));
+                entityManager.detach(loan);
+                if (loan.getBook() != null) {
+                    entityManager.detach(loan.getBook());
+                }
+            });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <S> CursorPage<S> findArchivedAfter(String cursor, int size, Function<LoanArchive, ? extends S> functionMapper) {
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            throw new DomainException("Tamanho de página inválido");
+        }
+
+        var slice = archiveRepository.findNextPage(CursorToken.decodeId(cursor), PageRequest.ofSize(size));
+        var content = slice.getContent();
+        var next = slice.hasNext() ? CursorToken.encode(content.get(content.size() - 1).getId()) : null;
+
+        return new CursorPage<>(slice.<S>map(functionMapper).getContent(), next);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <S> void exportWithArchive(Function<Loan, ? extends S> loanMapper,
+                                      Function<LoanArchive, ? extends S> archiveMapper,
+                                      Consumer<? super S> consumer) {
+        export(loanMapper, consumer);
+        try (var archived = archiveRepository.streamAll()) {
+            archived.forEach(loan -> {
+                consumer.accept(archiveMapper.apply(loan));
+                entityManager.detach(loan);
+            });
+        }
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.LOANS, key = "#id")
     public Loan findById(Long id) {
-        return repository.findById(id).orElseThrow(() -> new DomainException("Empréstimo não encontrado"));
+        return repository.findWithBookById(id).orElseThrow(() -> new DomainException(LoanRules.NOT_FOUND));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LoanVersion getVersion(Long id) {
+        var manager = cacheManager.getIfAvailable();
+        var cache = manager == null ? null : manager.getCache(CacheConfig.LOANS);
+        var cached = cache == null ? null : cache.get(id, Loan.class);
+        if (cached != null) {
+            return LoanVersion.of(cached);
+        }
+        return repository.findVersionById(id).orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <S> List<S> findOpenByCustomer(String email, Function<Loan, ? extends S> functionMapper) {
+        var customerEmail = LoanRules.normalizeEmail(email);
+        if (customerEmail == null) {
+            throw new DomainException("E-mail do cliente não informado");
+        }
+        return repository.findOpenByCustomerEmail(customerEmail).stream()
+                .<S>map(functionMapper)
+                .toList();
+    }
+
+    private static boolean isOpen(Loan loan) {
+        return Boolean.FALSE.equals(loan.getReturned());
+    }
+
+    /**
+     * Ajusta o contador de empréstimos em aberto quando o empréstimo abre, fecha ou muda de cliente.
+     * Abrir um empréstimo falha se o cliente já estiver no limite.
+     */
+    private void moveOpenLoan(String previousEmail, boolean wasOpen, Loan loan) {
+        var open = isOpen(loan);
+        if (wasOpen == open && Objects.equals(previousEmail, loan.getCustomerEmail())) {
+            return;
+        }
+        if (wasOpen && previousEmail != null) {
+            counterRepository.release(previousEmail, 1);
+        }
+        if (open && loan.getCustomerEmail() != null && counterRepository.reserve(loan.getCustomerEmail(), maxOpenLoans) == 0) {
+            throw new DomainException(LoanRules.CUSTOMER_LIMIT_REACHED);
+        }
+    }
+
+    /**
+     * Marca a data da devolução quando o empréstimo é devolvido e a limpa quando ele é reaberto.
+     */
+    private static void stampReturnedAt(boolean wasOpen, Loan loan) {
+        if (!Boolean.TRUE.equals(loan.getReturned())) {
+            loan.setReturnedAt(null);
+        } else if (wasOpen || loan.getReturnedAt() == null) {
+            loan.setReturnedAt(LocalDate.now());
+        }
+    }
+
+    /**
+     * Mantém a disponibilidade denormalizada do livro quando o empréstimo abre, fecha ou troca de livro.
+     * Roda depois do flush do empréstimo, quando o índice único já garantiu um só empréstimo ativo por livro.
+     */
+    private void moveBook(Long previousBookId, boolean wasOpen, Loan loan) {
+        var bookId = loan.getBook() == null ? null : loan.getBook().getId();
+        var open = isOpen(loan);
+        if (wasOpen == open && Objects.equals(previousBookId, bookId)) {
+            return;
+        }
+        if (wasOpen && previousBookId != null) {
+            bookService.markAvailable(List.of(previousBookId));
+        }
+        if (open && bookId != null) {
+            loan.setBook(bookService.markLoaned(bookId, loan.getId()));
+        }
+    }
+
+    private void checkVersion(Loan loan, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(loan.getVersion())) {
+            throw new PreconditionFailedException("Empréstimo alterado por outra requisição");
+        }
+    }
+
+    private void evictLoans(List<Long> loanIds) {
+        var manager = cacheManager.getIfAvailable();
+        var cache = manager == null ? null : manager.getCache(CacheConfig.LOANS);
+        if (cache != null) {
+            loanIds.forEach(cache::evict);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Loan saveWithSingleActiveLoan(Loan loan) {
+        try {
+            return repository.saveAndFlush(loan);
+        } catch (DataIntegrityViolationException e) {
+            throw new DomainException(LoanRules.BOOK_ALREADY_LOANED);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new PreconditionFailedException("Empréstimo alterado por outra requisição");
+        }
     }
 }
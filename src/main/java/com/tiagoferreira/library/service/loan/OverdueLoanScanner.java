@@ -0,0 +1,154 @@
+package com.tiagoferreira.library.service.loan;
+
+import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.entity.ScanCheckpoint;
+import com.tiagoferreira.library.repository.LoanRepository;
+import com.tiagoferreira.library.repository.ScanCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Varredura incremental de empréstimos atrasados. Percorre o índice (RETURNED, LOAN_DATE, id) a partir
+ * da última marca persistida em SCAN_CHECKPOINT, em blocos, cada um na sua própria transação.
+ * A data do empréstimo vem do cliente, então um empréstimo criado, reaberto ou redatado abaixo da marca
+ * só é visto na varredura completa: a cada {@code library.loan.overdue.full-rescan-interval} a marca volta
+ * ao início e todos os empréstimos ainda atrasados são informados de novo.
+ */
+@Component
+public class OverdueLoanScanner {
+
+    public static final String CHECKPOINT = "overdue-loans";
+
+    public static final String FULL_RESCAN_CHECKPOINT = "overdue-loans-full";
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueLoanScanner.class);
+
+    private final LoanRepository repository;
+
+    private final ScanCheckpointRepository checkpointRepository;
+
+    private final ApplicationEventPublisher publisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter detected;
+
+    private final boolean enabled;
+
+    private final int overdueDays;
+
+    private final int chunkSize;
+
+    private final Duration fullRescanInterval;
+
+    public OverdueLoanScanner(LoanRepository repository,
+                              ScanCheckpointRepository checkpointRepository,
+                              ApplicationEventPublisher publisher,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${library.loan.overdue.scan-enabled:true}") boolean enabled,
+                              @Value("${library.loan.overdue.days:14}") int overdueDays,
+                              @Value("${library.loan.overdue.chunk-size:500}") int chunkSize,
+                              @Value("${library.loan.overdue.full-rescan-interval:P1D}") Duration fullRescanInterval) {
+        this.repository = repository;
+        this.checkpointRepository = checkpointRepository;
+        this.publisher = publisher;
+        this.transactionTemplate = transactionTemplate;
+        this.detected = Counter.builder("library.loan.overdue.detected").register(meterRegistry);
+        this.enabled = enabled;
+        this.overdueDays = overdueDays;
+        this.chunkSize = chunkSize;
+        this.fullRescanInterval = fullRescanInterval;
+    }
+
+    @Scheduled(fixedDelayString = "${library.loan.overdue.scan-delay:PT1H}",
+            initialDelayString = "${library.loan.overdue.scan-delay:PT1H}")
+    public void scheduledScan() {
+        if (enabled) {
+            var found = scan();
+            if (found > 0) {
+                log.info("{} empréstimos atrasados detectados", found);
+            }
+        }
+    }
+
+    /**
+     * Processa os empréstimos que ficaram atrasados desde a última execução, ou todos os atrasados
+     * quando a varredura completa está vencida.
+     *
+     * @return quantidade de empréstimos atrasados detectados nesta execução
+     */
+    public int scan() {
+        var cutoff = LocalDate.now().minusDays(overdueDays);
+        transactionTemplate.executeWithoutResult(status -> restartIfDue());
+        var total = 0;
+        Integer processed;
+        do {
+            processed = transactionTemplate.execute(status -> processChunk(cutoff));
+            total += processed == null ? 0 : processed;
+        } while (processed != null && processed == chunkSize);
+        return total;
+    }
+
+    /**
+     * Volta a marca ao início quando a última varredura completa começou há mais de {@code fullRescanInterval}.
+     */
+    private void restartIfDue() {
+        var now = Instant.now();
+        var full = checkpointRepository.findById(FULL_RESCAN_CHECKPOINT)
+                .orElseGet(() -> ScanCheckpoint.builder().name(FULL_RESCAN_CHECKPOINT).build());
+        if (full.getUpdatedAt() != null && full.getUpdatedAt().plus(fullRescanInterval).isAfter(now)) {
+            return;
+        }
+
+        checkpointRepository.findById(CHECKPOINT).ifPresent(checkpoint -> {
+            checkpoint.setLastLoanDate(null);
+            checkpoint.setLastLoanId(null);
+            checkpoint.setUpdatedAt(now);
+            checkpointRepository.save(checkpoint);
+        });
+        full.setUpdatedAt(now);
+        checkpointRepository.save(full);
+    }
+
+    private int processChunk(LocalDate cutoff) {
+        var checkpoint = checkpointRepository.findById(CHECKPOINT)
+                .orElseGet(() -> ScanCheckpoint.builder().name(CHECKPOINT).build());
+
+        Slice<Loan> slice = checkpoint.getLastLoanDate() == null
+                ? repository.findOverdue(cutoff, PageRequest.ofSize(chunkSize))
+                : repository.findOverdueAfter(cutoff, checkpoint.getLastLoanDate(), checkpoint.getLastLoanId(),
+                PageRequest.ofSize(chunkSize));
+        if (slice.isEmpty()) {
+            return 0;
+        }
+
+        for (var loan : slice) {
+            publisher.publishEvent(new LoanOverdueEvent(loan.getId(),
+                    loan.getBook() == null ? null : loan.getBook().getId(),
+                    loan.getCustomer(), loan.getCustomerEmail(), loan.getLoanDate()));
+        }
+        detected.increment(slice.getNumberOfElements());
+
+        var last = slice.getContent().get(slice.getNumberOfElements() - 1);
+        checkpoint.setLastLoanDate(last.getLoanDate());
+        checkpoint.setLastLoanId(last.getId());
+        checkpoint.setUpdatedAt(Instant.now());
+        checkpointRepository.save(checkpoint);
+
+        return slice.getNumberOfElements();
+    }
+}
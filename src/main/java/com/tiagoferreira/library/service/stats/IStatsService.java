@@ -0,0 +1,23 @@
+package com.tiagoferreira.library.service.stats;
+
+import com.tiagoferreira.library.model.stats.StatsResponse;
+
+public interface IStatsService {
+
+    void bookCreated(String autor);
+
+    void bookUpdated(String previousAutor, String autor);
+
+    void bookDeleted(String autor);
+
+    /**
+     * {@code previous} nulo para empréstimo criado, {@code current} nulo para empréstimo excluído.
+     */
+    void loanChanged(LoanSnapshot previous, LoanSnapshot current);
+
+    void loansReturned(int count);
+
+    void rebuild();
+
+    StatsResponse summary(int days);
+}
@@ -0,0 +1,17 @@
+package com.tiagoferreira.library.service.stats;
+
+import com.tiagoferreira.library.entity.Loan;
+
+import java.time.LocalDate;
+
+/**
+ * O que as estatísticas precisam de um empréstimo antes ou depois de uma gravação.
+ */
+public record LoanSnapshot(Long bookId, LocalDate loanDate, boolean open) {
+
+    public static LoanSnapshot of(Loan loan) {
+        return new LoanSnapshot(loan.getBook() == null ? null : loan.getBook().getId(),
+                loan.getLoanDate(),
+                Boolean.FALSE.equals(loan.getReturned()));
+    }
+}
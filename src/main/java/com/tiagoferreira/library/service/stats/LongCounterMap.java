@@ -0,0 +1,143 @@
+package com.tiagoferreira.library.service.stats;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de contadores long → long com endereçamento aberto (sondagem linear), sem boxing de chaves nem valores.
+ * Contadores que chegam a zero são removidos. Não é thread-safe: o chamador sincroniza.
+ */
+public class LongCounterMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+
+    private long[] values;
+
+    private int size;
+
+    private int resizeAt;
+
+    public LongCounterMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Soma {@code delta} ao contador de {@code key} e devolve o novo valor.
+     */
+    public long add(long key, long delta) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Chave reservada");
+        }
+        var slot = slot(key);
+        if (keys[slot] == key) {
+            var value = values[slot] + delta;
+            if (value == 0) {
+                remove(slot);
+            } else {
+                values[slot] = value;
+            }
+            return value;
+        }
+        if (delta == 0) {
+            return 0;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return delta;
+    }
+
+    public long get(long key) {
+        var slot = slot(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    public void forEach(Entry consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Posição da chave ou da primeira posição vazia onde ela entraria.
+     */
+    private int slot(long key) {
+        var mask = keys.length - 1;
+        var slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Remoção por deslocamento para trás: puxa as chaves seguintes do mesmo agrupamento para não deixar lápides.
+     */
+    private void remove(int slot) {
+        var mask = keys.length - 1;
+        var gap = slot;
+        var next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            var home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                var slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        var needed = (int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private static int mix(long key) {
+        var hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @FunctionalInterface
+    public interface Entry {
+        void accept(long key, long value);
+    }
+}
@@ -0,0 +1,306 @@
+package com.tiagoferreira.library.service.stats;
+
+import com.tiagoferreira.library.exception.DomainException;
+import com.tiagoferreira.library.model.stats.AuthorStatsResponse;
+import com.tiagoferreira.library.model.stats.BookStatsResponse;
+import com.tiagoferreira.library.model.stats.StatsResponse;
+import com.tiagoferreira.library.repository.BookRepository;
+import com.tiagoferreira.library.repository.LoanArchiveRepository;
+import com.tiagoferreira.library.repository.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estatísticas do painel mantidas em memória: {@code BookService} e {@code LoanService} informam cada gravação
+ * após o commit, e o GET /stats lê os contadores e os rankings sem consultar o banco (O(k) mais os dias pedidos).
+ * Na inicialização os contadores são reconstruídos com uma leitura em streaming de livros e empréstimos;
+ * gravações concorrentes com essa leitura podem ficar de fora até a próxima reconstrução.
+ * Quando uma gravação deixa um ranking desatualizado, ele é remontado no executor da aplicação e o GET /stats
+ * continua servindo o último ranking válido até lá.
+ */
+@Service
+public class StatsService implements IStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatsService.class);
+
+    private static final int MAX_DAYS = 366;
+
+    private final BookRepository bookRepository;
+
+    private final LoanRepository loanRepository;
+
+    private final LoanArchiveRepository archiveRepository;
+
+    private final TaskExecutor executor;
+
+    private final int topSize;
+
+    private volatile Counters counters;
+
+    public StatsService(BookRepository bookRepository,
+                        LoanRepository loanRepository,
+                        LoanArchiveRepository archiveRepository,
+                        @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor executor,
+                        @Value("${library.stats.top-size:10}") int topSize) {
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+        this.archiveRepository = archiveRepository;
+        this.executor = executor;
+        this.topSize = topSize;
+        this.counters = new Counters(topSize);
+    }
+
+    @Override
+    public void bookCreated(String autor) {
+        var current = counters;
+        current.book(null, autor, 1);
+        rankIfStale(current);
+    }
+
+    @Override
+    public void bookUpdated(String previousAutor, String autor) {
+        var current = counters;
+        current.book(previousAutor, autor, 0);
+        rankIfStale(current);
+    }
+
+    @Override
+    public void bookDeleted(String autor) {
+        var current = counters;
+        current.book(autor, null, -1);
+        rankIfStale(current);
+    }
+
+    @Override
+    public void loanChanged(LoanSnapshot previous, LoanSnapshot current) {
+        var target = counters;
+        target.loan(previous, current);
+        rankIfStale(target);
+    }
+
+    @Override
+    public void loansReturned(int count) {
+        counters.openLoans.add(-count);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        var rebuilt = new Counters(topSize);
+        try (var autores = bookRepository.streamAllAutores()) {
+            autores.forEach(rebuilt::loadBook);
+        }
+        try (var loans = loanRepository.streamAllForStats()) {
+            loans.forEach(loan -> rebuilt.loadLoan(
+                    new LoanSnapshot(loan.getBookId(), loan.getLoanDate(), Boolean.FALSE.equals(loan.getReturned()))));
+        }
+        try (var archived = archiveRepository.streamAllForStats()) {
+            archived.forEach(loan -> rebuilt.loadLoan(new LoanSnapshot(loan.getBookId(), loan.getLoanDate(), false)));
+        }
+        rebuilt.rank();
+        counters = rebuilt;
+        log.info("Estatísticas reconstruídas: {} livros, {} empréstimos", rebuilt.books.sum(), rebuilt.loans.sum());
+    }
+
+    @Override
+    public StatsResponse summary(int days) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new DomainException("Quantidade de dias inválida");
+        }
+
+        var current = counters;
+        var ranking = current.ranking();
+        rankIfStale(current);
+
+        var today = LocalDate.now();
+        Map<LocalDate, Long> loansPerDay = new LinkedHashMap<>();
+        for (var date = today.minusDays(days - 1L); !date.isAfter(today); date = date.plusDays(1)) {
+            var adder = current.loansPerDay.get(date);
+            loansPerDay.put(date, adder == null ? 0 : adder.sum());
+        }
+
+        return StatsResponse.builder()
+                .books(current.books.sum())
+                .loans(current.loans.sum())
+                .openLoans(current.openLoans.sum())
+                .topAuthors(ranking.authors().stream().map(ranked -> new AuthorStatsResponse(ranked.key(), ranked.count())).toList())
+                .mostBorrowedBooks(ranking.books().stream().map(ranked -> new BookStatsResponse(ranked.key(), ranked.count())).toList())
+                .loansPerDay(loansPerDay)
+                .build();
+    }
+
+    /**
+     * Agenda a remontagem dos rankings de {@code current}, no máximo uma por vez.
+     */
+    private void rankIfStale(Counters current) {
+        if (!current.isStale() || !current.rankScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                current.rank();
+            } finally {
+                current.rankScheduled.set(false);
+            }
+            rankIfStale(current);
+        });
+    }
+
+    private static String authorKey(String autor) {
+        return autor == null || autor.isBlank() ? null : autor.trim();
+    }
+
+    /**
+     * Os totais são {@link LongAdder}s sem trava; os mapas por autor e por livro e os rankings
+     * são protegidos pelo monitor da instância.
+     */
+    private static final class Counters {
+
+        private final LongAdder books = new LongAdder();
+
+        private final LongAdder loans = new LongAdder();
+
+        private final LongAdder openLoans = new LongAdder();
+
+        private final Map<LocalDate, LongAdder> loansPerDay = new ConcurrentHashMap<>();
+
+        private final Map<String, Long> booksByAuthor = new HashMap<>();
+
+        private final LongCounterMap loansByBook;
+
+        private final TopK<String> topAuthors;
+
+        private final TopK<Long> topBooks;
+
+        private final AtomicBoolean rankScheduled = new AtomicBoolean();
+
+        private Ranking lastRanking = new Ranking(List.of(), List.of());
+
+        private Counters(int topSize) {
+            this.loansByBook = new LongCounterMap(1024);
+            this.topAuthors = new TopK<>(topSize);
+            this.topBooks = new TopK<>(topSize);
+        }
+
+        private void book(String previousAutor, String autor, int delta) {
+            books.add(delta);
+            var previous = authorKey(previousAutor);
+            var current = authorKey(autor);
+            if (Objects.equals(previous, current)) {
+                return;
+            }
+            synchronized (this) {
+                if (previous != null) {
+                    topAuthors.update(previous, addAuthor(previous, -1));
+                }
+                if (current != null) {
+                    topAuthors.update(current, addAuthor(current, 1));
+                }
+            }
+        }
+
+        private void loan(LoanSnapshot previous, LoanSnapshot current) {
+            loans.add((current == null ? 0 : 1) - (previous == null ? 0 : 1));
+            openLoans.add((current != null && current.open() ? 1 : 0) - (previous != null && previous.open() ? 1 : 0));
+
+            var previousDate = previous == null ? null : previous.loanDate();
+            var currentDate = current == null ? null : current.loanDate();
+            if (!Objects.equals(previousDate, currentDate)) {
+                addDay(previousDate, -1);
+                addDay(currentDate, 1);
+            }
+
+            var previousBook = previous == null ? null : previous.bookId();
+            var currentBook = current == null ? null : current.bookId();
+            if (!Objects.equals(previousBook, currentBook)) {
+                synchronized (this) {
+                    if (previousBook != null) {
+                        topBooks.update(previousBook, loansByBook.add(previousBook, -1));
+                    }
+                    if (currentBook != null) {
+                        topBooks.update(currentBook, loansByBook.add(currentBook, 1));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Carga da reconstrução: só contadores, os rankings são montados uma vez no fim por {@link #rank()}.
+         */
+        private void loadBook(String autor) {
+            books.increment();
+            var key = authorKey(autor);
+            if (key != null) {
+                addAuthor(key, 1);
+            }
+        }
+
+        private void loadLoan(LoanSnapshot loan) {
+            loans.increment();
+            if (loan.open()) {
+                openLoans.increment();
+            }
+            addDay(loan.loanDate(), 1);
+            if (loan.bookId() != null) {
+                loansByBook.add(loan.bookId(), 1);
+            }
+        }
+
+        private synchronized void rank() {
+            topAuthors.clear();
+            booksByAuthor.forEach(topAuthors::update);
+            topBooks.clear();
+            loansByBook.forEach(topBooks::update);
+            lastRanking = new Ranking(topAuthors.top(), topBooks.top());
+        }
+
+        private synchronized boolean isStale() {
+            return topAuthors.isStale() || topBooks.isStale();
+        }
+
+        /**
+         * Rankings atuais, ou os últimos válidos enquanto algum estiver desatualizado. O(k).
+         */
+        private synchronized Ranking ranking() {
+            if (!isStale()) {
+                lastRanking = new Ranking(topAuthors.top(), topBooks.top());
+            }
+            return lastRanking;
+        }
+
+        private long addAuthor(String autor, long delta) {
+            var count = booksByAuthor.getOrDefault(autor, 0L) + delta;
+            if (count <= 0) {
+                booksByAuthor.remove(autor);
+                return 0;
+            }
+            booksByAuthor.put(autor, count);
+            return count;
+        }
+
+        private void addDay(LocalDate date, int delta) {
+            if (date != null) {
+                loansPerDay.computeIfAbsent(date, key -> new LongAdder()).add(delta);
+            }
+        }
+    }
+
+    private record Ranking(List<TopK.Ranked<String>> authors, List<TopK.Ranked<Long>> books) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.tiagoferreira.library.service.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Ranking limitado às {@code k} maiores contagens, em ordem decrescente, atualizado a cada mudança de contador.
+ * Subidas são resolvidas em O(k). Quando um membro cai com o ranking cheio, algum não membro pode tê-lo
+ * ultrapassado: o ranking fica {@linkplain #isStale() desatualizado} até ser recarregado a partir dos contadores.
+ * Não é thread-safe: o chamador sincroniza.
+ */
+public class TopK<K> {
+
+    private final int k;
+
+    private final List<Ranked<K>> entries;
+
+    private boolean stale;
+
+    public TopK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Tamanho do ranking deve ser positivo");
+        }
+        this.k = k;
+        this.entries = new ArrayList<>(k + 1);
+    }
+
+    /**
+     * Informa a nova contagem de {@code key}.
+     */
+    public void update(K key, long count) {
+        var index = indexOf(key);
+        if (index < 0) {
+            if (count > 0 && (entries.size() < k || count > entries.get(k - 1).count())) {
+                if (entries.size() == k) {
+                    entries.remove(k - 1);
+                }
+                entries.add(new Ranked<>(key, count));
+                moveUp(entries.size() - 1);
+            }
+            return;
+        }
+
+        var previous = entries.get(index).count();
+        if (count <= 0) {
+            entries.remove(index);
+            stale |= entries.size() == k - 1;
+            return;
+        }
+        entries.set(index, new Ranked<>(key, count));
+        if (count > previous) {
+            moveUp(index);
+        } else if (count < previous) {
+            moveDown(index);
+            stale |= entries.size() == k;
+        }
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public void clear() {
+        entries.clear();
+        stale = false;
+    }
+
+    public List<Ranked<K>> top() {
+        return List.copyOf(entries);
+    }
+
+    private int indexOf(K key) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (Objects.equals(entries.get(i).key(), key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void moveUp(int index) {
+        while (index > 0 && entries.get(index - 1).count() < entries.get(index).count()) {
+            swap(index - 1, index);
+            index--;
+        }
+    }
+
+    private void moveDown(int index) {
+        while (index < entries.size() - 1 && entries.get(index + 1).count() > entries.get(index).count()) {
+            swap(index, index + 1);
+            index++;
+        }
+    }
+
+    private void swap(int i, int j) {
+        var entry = entries.get(i);
+        entries.set(i, entries.get(j));
+        entries.set(j, entry);
+    }
+
+    public record Ranked<K>(K key, long count) {
+    }
+}
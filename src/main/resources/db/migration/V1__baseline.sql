@@ -0,0 +1,36 @@
+create sequence BOOK_SEQ start with 1 increment by 50;
+
+create table BOOK (
+    ID    bigint not null,
+    NOME  varchar(255),
+    AUTOR varchar(255),
+    ISBN  varchar(255),
+    primary key (ID)
+);
+
+create unique index UK_BOOK_ISBN on BOOK (ISBN);
+
+create table LOAN (
+    ID             bigint generated by default as identity,
+    CUSTOMER       varchar(255),
+    CUSTOMER_EMAIL varchar(255),
+    ID_BOOK        bigint,
+    LOAN_DATE      date,
+    RETURNED       boolean,
+    ACTIVE_BOOK_ID bigint generated always as (case when RETURNED then null else ID_BOOK end),
+    primary key (ID),
+    constraint FK_LOAN_BOOK foreign key (ID_BOOK) references BOOK (ID)
+);
+
+create index IDX_LOAN_BOOK_RETURNED on LOAN (ID_BOOK, RETURNED);
+create index IDX_LOAN_RETURNED_DATE on LOAN (RETURNED, LOAN_DATE, ID);
+create index IDX_LOAN_DATE on LOAN (LOAN_DATE);
+create unique index UK_LOAN_ACTIVE_BOOK on LOAN (ACTIVE_BOOK_ID);
+
+create table SCAN_CHECKPOINT (
+    NAME           varchar(255) not null,
+    LAST_LOAN_DATE date,
+    LAST_LOAN_ID   bigint,
+    UPDATED_AT     timestamp(6) with time zone,
+    primary key (NAME)
+);
@@ -0,0 +1,2 @@
+alter table BOOK add column VERSION bigint default 0 not null;
+alter table LOAN add column VERSION bigint default 0 not null;
@@ -0,0 +1,15 @@
+update LOAN set CUSTOMER_EMAIL = lower(trim(CUSTOMER_EMAIL)) where CUSTOMER_EMAIL is not null;
+
+create index IDX_LOAN_CUSTOMER_EMAIL on LOAN (CUSTOMER_EMAIL, RETURNED);
+
+create table CUSTOMER_LOAN_COUNTER (
+    CUSTOMER_EMAIL varchar(255) not null,
+    OPEN_LOANS     integer      not null,
+    primary key (CUSTOMER_EMAIL)
+);
+
+insert into CUSTOMER_LOAN_COUNTER (CUSTOMER_EMAIL, OPEN_LOANS)
+select CUSTOMER_EMAIL, count(*)
+from LOAN
+where RETURNED = false and CUSTOMER_EMAIL is not null
+group by CUSTOMER_EMAIL;
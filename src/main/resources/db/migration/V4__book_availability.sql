@@ -0,0 +1,9 @@
+alter table BOOK add column AVAILABLE boolean default true not null;
+alter table BOOK add column CURRENT_LOAN_ID bigint;
+
+update BOOK b
+set AVAILABLE       = false,
+    CURRENT_LOAN_ID = (select l.ID from LOAN l where l.ACTIVE_BOOK_ID = b.ID)
+where exists (select 1 from LOAN l where l.ACTIVE_BOOK_ID = b.ID);
+
+create index IDX_BOOK_AVAILABLE on BOOK (AVAILABLE, ID);
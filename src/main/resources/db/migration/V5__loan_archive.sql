@@ -0,0 +1,21 @@
+alter table LOAN add column RETURNED_AT date;
+
+-- empréstimos devolvidos antes desta coluna ficam com a data do empréstimo
+update LOAN set RETURNED_AT = LOAN_DATE where RETURNED = true;
+
+create index IDX_LOAN_RETURNED_AT on LOAN (RETURNED_AT, ID);
+
+create table LOAN_ARCHIVE (
+    ID             bigint not null,
+    CUSTOMER       varchar(255),
+    CUSTOMER_EMAIL varchar(255),
+    ID_BOOK        bigint,
+    LOAN_DATE      date,
+    RETURNED_AT    date,
+    VERSION        bigint,
+    ARCHIVED_AT    timestamp(6) with time zone,
+    primary key (ID)
+);
+
+create index IDX_LOAN_ARCHIVE_BOOK on LOAN_ARCHIVE (ID_BOOK);
+create index IDX_LOAN_ARCHIVE_CUSTOMER_EMAIL on LOAN_ARCHIVE (CUSTOMER_EMAIL);
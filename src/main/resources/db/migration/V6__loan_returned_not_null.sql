@@ -0,0 +1,19 @@
+-- RETURNED nulo já contava como em aberto para ACTIVE_BOOK_ID (e UK_LOAN_ACTIVE_BOOK); passa a ser false de fato
+update LOAN set RETURNED = false where RETURNED is null;
+
+alter table LOAN alter column RETURNED set default false;
+alter table LOAN alter column RETURNED set not null;
+
+update BOOK b
+set AVAILABLE       = false,
+    CURRENT_LOAN_ID = (select l.ID from LOAN l where l.ACTIVE_BOOK_ID = b.ID)
+where exists (select 1 from LOAN l where l.ACTIVE_BOOK_ID = b.ID)
+  and (b.AVAILABLE = true or b.CURRENT_LOAN_ID is null);
+
+delete from CUSTOMER_LOAN_COUNTER;
+
+insert into CUSTOMER_LOAN_COUNTER (CUSTOMER_EMAIL, OPEN_LOANS)
+select CUSTOMER_EMAIL, count(*)
+from LOAN
+where RETURNED = false and CUSTOMER_EMAIL is not null
+group by CUSTOMER_EMAIL;
@@ -0,0 +1,57 @@
+package com.tiagoferreira.library.reactive;
+
+import com.tiagoferreira.library.model.CursorPage;
+import com.tiagoferreira.library.model.book.BookMapper;
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.model.book.BookResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/books")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookController {
+
+    private final BookMapper mapper;
+
+    private final ReactiveBookService service;
+
+    public ReactiveBookController(BookMapper mapper, ReactiveBookService service) {
+        this.mapper = mapper;
+        this.service = service;
+    }
+
+    @PostMapping
+    public Mono<BookResponse> create(@RequestBody BookRequest request) {
+        return service.create(request).map(mapper::toResponse);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<BookResponse> getById(@PathVariable Long id) {
+        return service.getById(id).map(mapper::toResponse);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<Void> delete(@PathVariable Long id) {
+        return service.delete(id);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<BookResponse> update(@RequestBody BookRequest request, @PathVariable Long id) {
+        return service.update(request, id).map(mapper::toResponse);
+    }
+
+    @GetMapping("/all")
+    public Mono<Page<BookResponse>> findAll(@RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "20") int size) {
+        return service.findAll(page, size, mapper::toResponse);
+    }
+
+    @GetMapping("/cursor")
+    public Mono<CursorPage<BookResponse>> findAfter(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int size) {
+        return service.findAfter(cursor, size, mapper::toResponse);
+    }
+}
@@ -0,0 +1,139 @@
+package com.tiagoferreira.library.reactive;
+
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.exception.DomainException;
+import com.tiagoferreira.library.model.CursorPage;
+import com.tiagoferreira.library.model.CursorToken;
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.service.book.BookRules;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookService {
+
+    private static final int MAX_CURSOR_SIZE = 1000;
+
+    private final DatabaseClient client;
+
+    public ReactiveBookService(DatabaseClient client) {
+        this.client = client;
+    }
+
+    public Mono<Book> create(BookRequest request) {
+        return Mono.fromRunnable(() -> BookRules.validate(request))
+                .then(existsByIsbn(request.getIsbn()))
+                .flatMap(exists -> exists
+                        ? Mono.<Long>error(new DomainException(BookRules.ISBN_TAKEN))
+                        : client.sql("SELECT NEXT VALUE FOR BOOK_SEQ").map(row -> row.get(0, Long.class)).one())
+                .flatMap(id -> bind(client.sql("INSERT INTO BOOK (ID, NOME, AUTOR, ISBN, VERSION) VALUES (:id, :nome, :autor, :isbn, 0)")
+                        .bind("id", id), request)
+                        .then()
+                        .then(getById(id)))
+                .onErrorMap(DataIntegrityViolationException.class, e -> new DomainException(BookRules.ISBN_TAKEN));
+    }
+
+    public Mono<Book> getById(Long id) {
+        return client.sql("SELECT " + Rows.BOOK_COLUMNS + " FROM BOOK WHERE ID = :id")
+                .bind("id", id)
+                .map(Rows::book)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new DomainException(BookRules.NOT_FOUND)));
+    }
+
+    public Mono<Void> delete(Long id) {
+        return client.sql("DELETE FROM BOOK WHERE ID = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows == 0 ? Mono.error(new DomainException(BookRules.NOT_FOUND)) : Mono.empty());
+    }
+
+    /**
+     * Marca o livro como emprestado a {@code loanId}, como o BookService da API MVC, na transação de quem chama.
+     */
+    public Mono<Void> markLoaned(Long bookId, Long loanId) {
+        return client.sql("UPDATE BOOK SET AVAILABLE = FALSE, CURRENT_LOAN_ID = :loanId, VERSION = VERSION + 1 WHERE ID = :id")
+                .bind("loanId", loanId)
+                .bind("id", bookId)
+                .then();
+    }
+
+    /**
+     * Marca o livro como disponível, na transação de quem chama.
+     */
+    public Mono<Void> markAvailable(Long bookId) {
+        return client.sql("UPDATE BOOK SET AVAILABLE = TRUE, CURRENT_LOAN_ID = NULL, VERSION = VERSION + 1 WHERE ID = :id")
+                .bind("id", bookId)
+                .then();
+    }
+
+    public Mono<Book> update(BookRequest request, Long id) {
+        return bind(client.sql("UPDATE BOOK SET NOME = :nome, AUTOR = :autor, ISBN = :isbn, VERSION = VERSION + 1 WHERE ID = :id")
+                .bind("id", id), request)
+                .fetch()
+                .rowsUpdated()
+                .onErrorMap(DataIntegrityViolationException.class, e -> new DomainException(BookRules.ISBN_TAKEN))
+                .flatMap(rows -> rows == 0 ? Mono.error(new DomainException(BookRules.NOT_FOUND)) : getById(id));
+    }
+
+    public <S> Mono<Page<S>> findAll(int page, int size, Function<Book, ? extends S> functionMapper) {
+        var pageable = PageRequest.of(page, size);
+        var content = client.sql("SELECT " + Rows.BOOK_COLUMNS + " FROM BOOK ORDER BY ID LIMIT :limit OFFSET :offset")
+                .bind("limit", size)
+                .bind("offset", pageable.getOffset())
+                .map(Rows::book)
+                .all()
+                .<S>map(functionMapper)
+                .collectList();
+        var total = client.sql("SELECT COUNT(*) FROM BOOK").map(row -> row.get(0, Long.class)).one();
+
+        return Mono.zip(content, total).map(tuple -> new PageImpl<>(tuple.getT1(), pageable, tuple.getT2()));
+    }
+
+    public <S> Mono<CursorPage<S>> findAfter(String cursor, int size, Function<Book, ? extends S> functionMapper) {
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            return Mono.error(new DomainException("Tamanho de página inválido"));
+        }
+
+        return Mono.fromCallable(() -> CursorToken.decodeId(cursor))
+                .flatMap(lastId -> client.sql("SELECT " + Rows.BOOK_COLUMNS + " FROM BOOK WHERE ID > :lastId ORDER BY ID LIMIT :limit")
+                        .bind("lastId", lastId)
+                        .bind("limit", size + 1)
+                        .map(Rows::book)
+                        .all()
+                        .collectList())
+                .map(books -> {
+                    var hasNext = books.size() > size;
+                    var content = hasNext ? books.subList(0, size) : books;
+                    var next = hasNext ? CursorToken.encode(content.get(content.size() - 1).getId()) : null;
+                    return new CursorPage<>(content.stream().<S>map(functionMapper).toList(), next);
+                });
+    }
+
+    private Mono<Boolean> existsByIsbn(String isbn) {
+        if (isbn == null) {
+            return Mono.just(false);
+        }
+        return client.sql("SELECT COUNT(*) FROM BOOK WHERE ISBN = :isbn")
+                .bind("isbn", isbn)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .map(count -> count > 0);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, BookRequest request) {
+        spec = request.getNome() == null ? spec.bindNull("nome", String.class) : spec.bind("nome", request.getNome());
+        spec = request.getAutor() == null ? spec.bindNull("autor", String.class) : spec.bind("autor", request.getAutor());
+        return request.getIsbn() == null ? spec.bindNull("isbn", String.class) : spec.bind("isbn", request.getIsbn());
+    }
+}
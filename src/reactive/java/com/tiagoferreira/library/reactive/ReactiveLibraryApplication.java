@@ -0,0 +1,36 @@
+package com.tiagoferreira.library.reactive;
+
+import com.tiagoferreira.library.model.book.BookMapper;
+import com.tiagoferreira.library.model.loan.LoanMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * API reativa de livros e empréstimos (WebFlux + R2DBC), com os mesmos DTOs, mappers e regras da API MVC.
+ * Só é compilada com o profile Maven `reactive` e sobe com o profile Spring `reactive`.
+ */
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@SpringBootApplication(scanBasePackageClasses = {ReactiveLibraryApplication.class, BookMapper.class, LoanMapper.class})
+public class ReactiveLibraryApplication {
+
+    public static final String PROFILE = "reactive";
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveLibraryApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .profiles(PROFILE)
+                .run(args);
+    }
+
+    /**
+     * O Tomcat do starter web também está no classpath; o Netty atende com um número fixo de event loops.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -0,0 +1,62 @@
+package com.tiagoferreira.library.reactive;
+
+import com.tiagoferreira.library.model.CursorPage;
+import com.tiagoferreira.library.model.loan.LoanMapper;
+import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.model.loan.LoanResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/loans")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoanController {
+
+    private final LoanMapper mapper;
+
+    private final ReactiveLoanService service;
+
+    public ReactiveLoanController(LoanMapper mapper, ReactiveLoanService service) {
+        this.mapper = mapper;
+        this.service = service;
+    }
+
+    @PostMapping
+    public Mono<LoanResponse> create(@RequestBody LoanRequest request) {
+        return service.create(request).map(mapper::toResponse);
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<LoanResponse> retornedBook(@RequestBody LoanRequest request, @PathVariable Long id) {
+        return service.retornedBook(id, request).map(mapper::toResponse);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<Void> delete(@PathVariable Long id) {
+        return service.delete(id);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<LoanResponse> update(@RequestBody LoanRequest request, @PathVariable Long id) {
+        return service.update(id, request).map(mapper::toResponse);
+    }
+
+    @GetMapping("/all")
+    public Mono<Page<LoanResponse>> findAll(@RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "20") int size) {
+        return service.findAll(page, size, mapper::toResponse);
+    }
+
+    @GetMapping("/cursor")
+    public Mono<CursorPage<LoanResponse>> findAfter(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int size) {
+        return service.findAfter(cursor, size, mapper::toResponse);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<LoanResponse> findById(@PathVariable Long id) {
+        return service.findById(id).map(mapper::toResponse);
+    }
+}
@@ -0,0 +1,248 @@
+package com.tiagoferreira.library.reactive;
+
+import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.exception.DomainException;
+import com.tiagoferreira.library.model.CursorPage;
+import com.tiagoferreira.library.model.CursorToken;
+import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.service.book.BookRules;
+import com.tiagoferreira.library.service.loan.LoanRules;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.function.Function;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveLoanService {
+
+    private static final int MAX_CURSOR_SIZE = 1000;
+
+    /**
+     * Data da devolução usada pelo arquivamento de empréstimos, mantida como no LoanService da API MVC.
+     */
+    private static final String RETURNED_AT =
+            "RETURNED_AT = CASE WHEN CAST(:returned AS BOOLEAN) THEN COALESCE(RETURNED_AT, CURRENT_DATE) END";
+
+    private final DatabaseClient client;
+
+    private final ReactiveBookService bookService;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final int maxOpenLoans;
+
+    public ReactiveLoanService(DatabaseClient client,
+                               ReactiveBookService bookService,
+                               TransactionalOperator transactionalOperator,
+                               @Value("${library.loan.customer.max-open-loans:0}") int maxOpenLoans) {
+        this.client = client;
+        this.bookService = bookService;
+        this.transactionalOperator = transactionalOperator;
+        this.maxOpenLoans = maxOpenLoans > 0 ? maxOpenLoans : Integer.MAX_VALUE;
+    }
+
+    public Mono<Loan> create(LoanRequest request) {
+        var current = LoanState.of(request);
+        return validateCreate(request)
+                .then(moveOpenLoan(LoanState.NONE, current))
+                .then(bind(client.sql("INSERT INTO LOAN (CUSTOMER, CUSTOMER_EMAIL, ID_BOOK, LOAN_DATE, RETURNED, RETURNED_AT, VERSION)"
+                        + " VALUES (:customer, :customerEmail, :idBook, :loanDate, :returned,"
+                        + " CASE WHEN CAST(:returned AS BOOLEAN) THEN CURRENT_DATE END, 0)"), request)
+                        .filter(statement -> statement.returnGeneratedValues("ID"))
+                        .map(row -> row.get("ID", Long.class))
+                        .one())
+                .flatMap(id -> moveBook(LoanState.NONE, current, id).thenReturn(id))
+                .as(transactionalOperator::transactional)
+                .onErrorMap(DataIntegrityViolationException.class, e -> new DomainException(LoanRules.BOOK_ALREADY_LOANED))
+                .flatMap(this::findById);
+    }
+
+    /**
+     * Lê a disponibilidade do livro em BOOK, com bloqueio até o fim da transação, como o LoanService da API MVC.
+     */
+    public Mono<Void> validateCreate(LoanRequest request) {
+        if (request.getIdBook() == null) {
+            return Mono.error(new DomainException(BookRules.NOT_FOUND));
+        }
+        return client.sql("SELECT AVAILABLE FROM BOOK WHERE ID = :idBook FOR UPDATE")
+                .bind("idBook", request.getIdBook())
+                .map(row -> Boolean.TRUE.equals(row.get("AVAILABLE", Boolean.class)))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new DomainException(BookRules.NOT_FOUND)))
+                .flatMap(available -> available ? Mono.empty() : Mono.error(new DomainException(LoanRules.BOOK_ALREADY_LOANED)));
+    }
+
+    public Mono<Loan> retornedBook(Long id, LoanRequest request) {
+        var returned = Boolean.TRUE.equals(request.getReturned());
+        return lockState(id)
+                .flatMap(previous -> moveOpenLoan(previous, previous.withOpen(!returned))
+                        .then(client.sql("UPDATE LOAN SET RETURNED = :returned, " + RETURNED_AT + ", VERSION = VERSION + 1 WHERE ID = :id")
+                                .bind("returned", returned)
+                                .bind("id", id)
+                                .then())
+                        .then(moveBook(previous, previous.withOpen(!returned), id)))
+                .as(transactionalOperator::transactional)
+                .onErrorMap(DataIntegrityViolationException.class, e -> new DomainException(LoanRules.BOOK_ALREADY_LOANED))
+                .then(findById(id));
+    }
+
+    public Mono<Void> delete(Long id) {
+        return lockState(id)
+                .flatMap(previous -> moveOpenLoan(previous, LoanState.NONE)
+                        .then(client.sql("DELETE FROM LOAN WHERE ID = :id")
+                                .bind("id", id)
+                                .then())
+                        .then(moveBook(previous, LoanState.NONE, id)))
+                .as(transactionalOperator::transactional)
+                .then();
+    }
+
+    public Mono<Loan> update(Long id, LoanRequest request) {
+        var current = LoanState.of(request);
+        return bookService.getById(request.getIdBook())
+                .then(lockState(id))
+                .flatMap(previous -> moveOpenLoan(previous, current)
+                        .then(bind(client.sql("UPDATE LOAN SET CUSTOMER = :customer, CUSTOMER_EMAIL = :customerEmail,"
+                                + " ID_BOOK = :idBook, LOAN_DATE = :loanDate, RETURNED = :returned, " + RETURNED_AT
+                                + ", VERSION = VERSION + 1 WHERE ID = :id")
+                                .bind("id", id), request)
+                                .then())
+                        .then(moveBook(previous, current, id)))
+                .as(transactionalOperator::transactional)
+                .onErrorMap(DataIntegrityViolationException.class, e -> new DomainException(LoanRules.BOOK_ALREADY_LOANED))
+                .then(findById(id));
+    }
+
+    public Mono<Loan> findById(Long id) {
+        return client.sql(Rows.LOAN_SELECT + " WHERE l.ID = :id")
+                .bind("id", id)
+                .map(Rows::loan)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new DomainException(LoanRules.NOT_FOUND)));
+    }
+
+    public <S> Mono<Page<S>> findAll(int page, int size, Function<Loan, ? extends S> functionMapper) {
+        var pageable = PageRequest.of(page, size);
+        var content = client.sql(Rows.LOAN_SELECT + " ORDER BY l.ID LIMIT :limit OFFSET :offset")
+                .bind("limit", size)
+                .bind("offset", pageable.getOffset())
+                .map(Rows::loan)
+                .all()
+                .<S>map(functionMapper)
+                .collectList();
+        var total = client.sql("SELECT COUNT(*) FROM LOAN").map(row -> row.get(0, Long.class)).one();
+
+        return Mono.zip(content, total).map(tuple -> new PageImpl<>(tuple.getT1(), pageable, tuple.getT2()));
+    }
+
+    public <S> Mono<CursorPage<S>> findAfter(String cursor, int size, Function<Loan, ? extends S> functionMapper) {
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            return Mono.error(new DomainException("Tamanho de página inválido"));
+        }
+
+        return Mono.fromCallable(() -> CursorToken.decodeId(cursor))
+                .flatMap(lastId -> client.sql(Rows.LOAN_SELECT + " WHERE l.ID > :lastId ORDER BY l.ID LIMIT :limit")
+                        .bind("lastId", lastId)
+                        .bind("limit", size + 1)
+                        .map(Rows::loan)
+                        .all()
+                        .collectList())
+                .map(loans -> {
+                    var hasNext = loans.size() > size;
+                    var content = hasNext ? loans.subList(0, size) : loans;
+                    var next = hasNext ? CursorToken.encode(content.get(content.size() - 1).getId()) : null;
+                    return new CursorPage<>(content.stream().<S>map(functionMapper).toList(), next);
+                });
+    }
+
+    /**
+     * Estado do empréstimo que decide o contador do cliente e a disponibilidade do livro, lido com bloqueio até o fim
+     * da transação.
+     */
+    private Mono<LoanState> lockState(Long id) {
+        return client.sql("SELECT ID_BOOK, CUSTOMER_EMAIL, RETURNED FROM LOAN WHERE ID = :id FOR UPDATE")
+                .bind("id", id)
+                .map(row -> new LoanState(row.get("ID_BOOK", Long.class), row.get("CUSTOMER_EMAIL", String.class),
+                        Boolean.FALSE.equals(row.get("RETURNED", Boolean.class))))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new DomainException(LoanRules.NOT_FOUND)));
+    }
+
+    /**
+     * Ajusta CUSTOMER_LOAN_COUNTER como o LoanService da API MVC: libera a vaga do empréstimo que fechou ou mudou
+     * de cliente e reserva a do que abriu, falhando se o cliente já estiver no limite.
+     */
+    private Mono<Void> moveOpenLoan(LoanState previous, LoanState current) {
+        if (previous.open() == current.open() && Objects.equals(previous.customerEmail(), current.customerEmail())) {
+            return Mono.empty();
+        }
+        var release = previous.open() && previous.customerEmail() != null
+                ? client.sql("UPDATE CUSTOMER_LOAN_COUNTER SET OPEN_LOANS = CASE WHEN OPEN_LOANS > 0 THEN OPEN_LOANS - 1 ELSE 0 END"
+                        + " WHERE CUSTOMER_EMAIL = :email")
+                .bind("email", previous.customerEmail())
+                .then()
+                : Mono.<Void>empty();
+        var reserve = current.open() && current.customerEmail() != null
+                ? client.sql("MERGE INTO CUSTOMER_LOAN_COUNTER c"
+                        + " USING (VALUES (CAST(:email AS VARCHAR(255)))) s(CUSTOMER_EMAIL) ON c.CUSTOMER_EMAIL = s.CUSTOMER_EMAIL"
+                        + " WHEN MATCHED AND c.OPEN_LOANS < :limit THEN UPDATE SET OPEN_LOANS = c.OPEN_LOANS + 1"
+                        + " WHEN NOT MATCHED AND :limit > 0 THEN INSERT (CUSTOMER_EMAIL, OPEN_LOANS) VALUES (s.CUSTOMER_EMAIL, 1)")
+                .bind("email", current.customerEmail())
+                .bind("limit", maxOpenLoans)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows == 0 ? Mono.<Void>error(new DomainException(LoanRules.CUSTOMER_LIMIT_REACHED)) : Mono.empty())
+                : Mono.<Void>empty();
+        return release.then(reserve);
+    }
+
+    /**
+     * Mantém AVAILABLE e CURRENT_LOAN_ID em BOOK quando o empréstimo abre, fecha ou troca de livro. Roda depois da
+     * gravação do empréstimo, quando o índice único já garantiu um só empréstimo ativo por livro.
+     */
+    private Mono<Void> moveBook(LoanState previous, LoanState current, Long loanId) {
+        if (previous.open() == current.open() && Objects.equals(previous.bookId(), current.bookId())) {
+            return Mono.empty();
+        }
+        var release = previous.open() && previous.bookId() != null
+                ? bookService.markAvailable(previous.bookId())
+                : Mono.<Void>empty();
+        var occupy = current.open() && current.bookId() != null
+                ? bookService.markLoaned(current.bookId(), loanId)
+                : Mono.<Void>empty();
+        return release.then(occupy);
+    }
+
+    private record LoanState(Long bookId, String customerEmail, boolean open) {
+
+        static final LoanState NONE = new LoanState(null, null, false);
+
+        static LoanState of(LoanRequest request) {
+            return new LoanState(request.getIdBook(), LoanRules.normalizeEmail(request.getCustomerEmail()),
+                    !Boolean.TRUE.equals(request.getReturned()));
+        }
+
+        LoanState withOpen(boolean open) {
+            return new LoanState(bookId, customerEmail, open);
+        }
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, LoanRequest request) {
+        spec = request.getCustomer() == null ? spec.bindNull("customer", String.class) : spec.bind("customer", request.getCustomer());
+        var customerEmail = LoanRules.normalizeEmail(request.getCustomerEmail());
+        spec = customerEmail == null ? spec.bindNull("customerEmail", String.class) : spec.bind("customerEmail", customerEmail);
+        spec = request.getLoanDate() == null ? spec.bindNull("loanDate", LocalDate.class) : spec.bind("loanDate", request.getLoanDate());
+        return spec.bind("idBook", request.getIdBook()).bind("returned", Boolean.TRUE.equals(request.getReturned()));
+    }
+}
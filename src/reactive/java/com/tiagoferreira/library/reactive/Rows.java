@@ -0,0 +1,55 @@
+package com.tiagoferreira.library.reactive;
+
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.entity.Loan;
+import io.r2dbc.spi.Readable;
+
+import java.time.LocalDate;
+
+final class Rows {
+
+    static final String BOOK_COLUMNS = "ID, NOME, AUTOR, ISBN, AVAILABLE, CURRENT_LOAN_ID, VERSION";
+
+    static final String LOAN_SELECT = "SELECT l.ID, l.CUSTOMER, l.CUSTOMER_EMAIL, l.LOAN_DATE, l.RETURNED, l.VERSION,"
+            + " b.ID AS BOOK_ID, b.NOME, b.AUTOR, b.ISBN, b.AVAILABLE, b.CURRENT_LOAN_ID,"
+            + " b.VERSION AS BOOK_VERSION"
+            + " FROM LOAN l LEFT JOIN BOOK b ON b.ID = l.ID_BOOK";
+
+    private Rows() {
+    }
+
+    static Book book(Readable row) {
+        return Book.builder()
+                .id(row.get("ID", Long.class))
+                .nome(row.get("NOME", String.class))
+                .autor(row.get("AUTOR", String.class))
+                .isbn(row.get("ISBN", String.class))
+                .available(row.get("AVAILABLE", Boolean.class))
+                .currentLoanId(row.get("CURRENT_LOAN_ID", Long.class))
+                .version(row.get("VERSION", Long.class))
+                .build();
+    }
+
+    static Loan loan(Readable row) {
+        var bookId = row.get("BOOK_ID", Long.class);
+        var book = bookId == null ? null : Book.builder()
+                .id(bookId)
+                .nome(row.get("NOME", String.class))
+                .autor(row.get("AUTOR", String.class))
+                .isbn(row.get("ISBN", String.class))
+                .available(row.get("AVAILABLE", Boolean.class))
+                .currentLoanId(row.get("CURRENT_LOAN_ID", Long.class))
+                .version(row.get("BOOK_VERSION", Long.class))
+                .build();
+
+        return Loan.builder()
+                .id(row.get("ID", Long.class))
+                .customer(row.get("CUSTOMER", String.class))
+                .customerEmail(row.get("CUSTOMER_EMAIL", String.class))
+                .loanDate(row.get("LOAN_DATE", LocalDate.class))
+                .returned(row.get("RETURNED", Boolean.class))
+                .version(row.get("VERSION", Long.class))
+                .book(book)
+                .build();
+    }
+}
@@ -0,0 +1,225 @@
+package com.tiagoferreira.library.unite;
+
+import com.tiagoferreira.library.model.CursorPage;
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.model.book.BookResponse;
+import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.model.loan.LoanResponse;
+import com.tiagoferreira.library.reactive.ReactiveLibraryApplication;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@ActiveProfiles(ReactiveLibraryApplication.PROFILE)
+@SpringBootTest(classes = ReactiveLibraryApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.main.web-application-type=reactive",
+                "library.loan.customer.max-open-loans=1"
+        })
+public class ReactiveApiTest {
+
+    @Autowired
+    WebTestClient client;
+
+    @Test
+    @DisplayName("Criar e buscar livro na API reativa teste bem sucedido")
+    public void createAndGetBookIsOk() {
+        var created = createBook();
+
+        var found = client.get().uri("/books/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookResponse.class)
+                .returnResult().getResponseBody();
+
+        Assertions.assertNotNull(found);
+        Assertions.assertEquals(created.getIsbn(), found.getIsbn());
+    }
+
+    @Test
+    @DisplayName("Criar livro na API reativa teste mal sucedido, ISBN ja cadastrado e livro sem nome")
+    public void createBookIsInvalid() {
+        var created = createBook();
+
+        client.post().uri("/books")
+                .bodyValue(BookRequest.builder().nome("Outro").autor("Outro").isbn(created.getIsbn()).build())
+                .exchange()
+                .expectStatus().is5xxServerError();
+        client.post().uri("/books")
+                .bodyValue(BookRequest.builder().autor("Sem nome").isbn("reativo-" + UUID.randomUUID()).build())
+                .exchange()
+                .expectStatus().is5xxServerError();
+    }
+
+    @Test
+    @DisplayName("Emprestar e devolver livro na API reativa teste bem sucedido, sem empréstimo duplicado")
+    public void loanLifecycleIsOk() {
+        var book = createBook();
+        var request = LoanRequest.builder()
+                .customer("Fulano")
+                .customerEmail("teste@gmail.com")
+                .idBook(book.getId())
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .build();
+
+        var loan = client.post().uri("/loans").bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoanResponse.class)
+                .returnResult().getResponseBody();
+
+        Assertions.assertNotNull(loan);
+        Assertions.assertEquals(book.getId(), loan.getBook().getId());
+
+        client.post().uri("/loans").bodyValue(request)
+                .exchange()
+                .expectStatus().is5xxServerError();
+
+        var returned = client.patch().uri("/loans/{id}", loan.getId())
+                .bodyValue(LoanRequest.builder().returned(true).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoanResponse.class)
+                .returnResult().getResponseBody();
+
+        Assertions.assertNotNull(returned);
+        Assertions.assertTrue(returned.getReturned());
+    }
+
+    @Test
+    @DisplayName("Emprestar na API reativa teste mal sucedido, cliente no limite de empréstimos em aberto")
+    public void customerLimitIsEnforced() {
+        var first = loanRequest(createBook(), "limite-reativo@gmail.com");
+        var second = loanRequest(createBook(), "limite-reativo@gmail.com");
+
+        var loan = client.post().uri("/loans").bodyValue(first)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoanResponse.class)
+                .returnResult().getResponseBody();
+        Assertions.assertNotNull(loan);
+
+        client.post().uri("/loans").bodyValue(second)
+                .exchange()
+                .expectStatus().is5xxServerError();
+
+        client.patch().uri("/loans/{id}", loan.getId())
+                .bodyValue(LoanRequest.builder().returned(true).build())
+                .exchange()
+                .expectStatus().isOk();
+
+        client.post().uri("/loans").bodyValue(second)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    @DisplayName("Disponibilidade do livro na API reativa acompanha criação, devolução, troca e remoção do empréstimo teste bem sucedido")
+    public void availabilityFollowsLoans() {
+        var first = createBook();
+        var second = createBook();
+        Assertions.assertTrue(first.getAvailable());
+
+        var loan = client.post().uri("/loans").bodyValue(loanRequest(first, "disponivel-reativo@gmail.com"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(LoanResponse.class)
+                .returnResult().getResponseBody();
+        Assertions.assertNotNull(loan);
+        Assertions.assertFalse(loan.getBook().getAvailable());
+        Assertions.assertEquals(loan.getId(), loan.getBook().getCurrentLoanId());
+
+        client.patch().uri("/loans/{id}", loan.getId())
+                .bodyValue(LoanRequest.builder().returned(true).build())
+                .exchange()
+                .expectStatus().isOk();
+        Assertions.assertTrue(getBook(first).getAvailable());
+
+        client.patch().uri("/loans/{id}", loan.getId())
+                .bodyValue(LoanRequest.builder().returned(false).build())
+                .exchange()
+                .expectStatus().isOk();
+        Assertions.assertEquals(loan.getId(), getBook(first).getCurrentLoanId());
+
+        client.put().uri("/loans/{id}", loan.getId())
+                .bodyValue(loanRequest(second, "disponivel-reativo@gmail.com"))
+                .exchange()
+                .expectStatus().isOk();
+        Assertions.assertTrue(getBook(first).getAvailable());
+        Assertions.assertFalse(getBook(second).getAvailable());
+
+        client.delete().uri("/loans/{id}", loan.getId())
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+        Assertions.assertTrue(getBook(second).getAvailable());
+        Assertions.assertNull(getBook(second).getCurrentLoanId());
+    }
+
+    @Test
+    @DisplayName("Buscar livros por cursor na API reativa teste bem sucedido")
+    public void findAfterIsOk() {
+        for (int i = 0; i < 5; i++) {
+            createBook();
+        }
+
+        var total = 0;
+        String cursor = null;
+        do {
+            var uri = cursor == null ? "/books/cursor?size=2" : "/books/cursor?size=2&cursor=" + cursor;
+            var page = client.get().uri(uri)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(new ParameterizedTypeReference<CursorPage<BookResponse>>() {
+                    })
+                    .returnResult().getResponseBody();
+
+            Assertions.assertNotNull(page);
+            Assertions.assertTrue(page.getContent().size() <= 2);
+            total += page.getContent().size();
+            cursor = page.getNext();
+        } while (cursor != null);
+
+        Assertions.assertTrue(total >= 5);
+    }
+
+    private static LoanRequest loanRequest(BookResponse book, String email) {
+        return LoanRequest.builder()
+                .customer("Fulano")
+                .customerEmail(email)
+                .idBook(book.getId())
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .build();
+    }
+
+    private BookResponse getBook(BookResponse book) {
+        return client.get().uri("/books/{id}", book.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookResponse.class)
+                .returnResult().getResponseBody();
+    }
+
+    private BookResponse createBook() {
+        return client.post().uri("/books")
+                .bodyValue(BookRequest.builder()
+                        .nome("Harry Potter")
+                        .autor("J.K.Rolling")
+                        .isbn("reativo-" + UUID.randomUUID())
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BookResponse.class)
+                .returnResult().getResponseBody();
+    }
+}
@@ -0,0 +1,234 @@
+package com.tiagoferreira.library.unite;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagoferreira.library.config.CacheConfig;
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.model.loan.LoanReturnRequest;
+import com.tiagoferreira.library.repository.BookRepository;
+import com.tiagoferreira.library.service.book.BookAvailabilityReconciler;
+import com.tiagoferreira.library.service.book.IBookService;
+import com.tiagoferreira.library.service.loan.ILoanService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Sem @Transactional: o reconciliador abre uma transação por bloco.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:availability;DB_CLOSE_DELAY=-1")
+public class BookAvailabilityTest {
+
+    @Autowired
+    IBookService bookService;
+
+    @Autowired
+    ILoanService loanService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    BookAvailabilityReconciler reconciler;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    @DisplayName("Disponibilidade do livro acompanha criação, devolução, alteração e remoção do empréstimo teste bem sucedido")
+    public void availabilityFollowsLoans() {
+        var first = createBook("disponivel-1");
+        var second = createBook("disponivel-2");
+        assertAvailable(first);
+
+        var loan = loanService.create(loanRequest(first, "disponivel1@gmail.com"));
+        assertLoaned(first, loan.getId());
+
+        loanService.retornedBook(loan.getId(), LoanRequest.builder().returned(true).build(), null);
+        assertAvailable(first);
+
+        loanService.retornedBook(loan.getId(), LoanRequest.builder().returned(false).build(), null);
+        assertLoaned(first, loan.getId());
+
+        loanService.update(loan.getId(), loanRequest(second, "disponivel1@gmail.com"), null);
+        assertAvailable(first);
+        assertLoaned(second, loan.getId());
+
+        loanService.delete(loan.getId());
+        assertAvailable(second);
+
+        loanService.create(loanRequest(first, "disponivel2@gmail.com"));
+        loanService.returnAll(new LoanReturnRequest(null, List.of(first)));
+        assertAvailable(first);
+    }
+
+    @Test
+    @DisplayName("Criar empréstimo decide pela disponibilidade no banco e não pela cópia em cache teste bem sucedido")
+    public void createIgnoresStaleCachedBook() {
+        var bookId = createBook("disponivel-cache");
+        var stale = Book.builder().id(bookId).nome("Livro disponivel-cache").isbn("disponivel-cache")
+                .available(false).currentLoanId(-1L).version(0L).build();
+        cacheManager.getCache(CacheConfig.BOOKS).put(bookId, stale);
+
+        var loan = loanService.create(loanRequest(bookId, "disponivel-cache@gmail.com"));
+
+        assertLoaned(bookId, loan.getId());
+    }
+
+    @Test
+    @DisplayName("Empréstimo em cache acompanha a versão do livro quando outro empréstimo o ocupa teste bem sucedido")
+    public void cachedLoanFollowsBookVersion() throws Exception {
+        var bookId = createBook("disponivel-versao");
+        var first = loanService.create(loanRequest(bookId, "disponivel-versao1@gmail.com"));
+        loanService.retornedBook(first.getId(), LoanRequest.builder().returned(true).build(), null);
+        var etag = mvc.perform(get("/loans/" + first.getId())).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        loanService.create(loanRequest(bookId, "disponivel-versao2@gmail.com"));
+
+        var response = mvc.perform(get("/loans/" + first.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andReturn().getResponse();
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertNotEquals(etag, response.getHeader(HttpHeaders.ETAG));
+        Assertions.assertEquals(bookRepository.findById(bookId).orElseThrow().getVersion(),
+                loanService.findById(first.getId()).getBook().getVersion());
+    }
+
+    @Test
+    @DisplayName("Listar livros disponíveis por cursor teste bem sucedido")
+    public void findAvailable() throws Exception {
+        var free = createBook("disponivel-lista-1");
+        var loaned = createBook("disponivel-lista-2");
+        loanService.create(loanRequest(loaned, "disponivel3@gmail.com"));
+
+        var ids = new ArrayList<Long>();
+        String cursor = null;
+        do {
+            var request = get("/books/available").param("size", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            var content = mvc.perform(request).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+            var page = objectMapper.readTree(content);
+            page.get("content").forEach(book -> {
+                Assertions.assertTrue(book.get("available").asBoolean());
+                ids.add(book.get("id").asLong());
+            });
+            cursor = page.get("next").isNull() ? null : page.get("next").asText();
+        } while (cursor != null);
+
+        Assertions.assertTrue(ids.contains(free));
+        Assertions.assertFalse(ids.contains(loaned));
+    }
+
+    @Test
+    @DisplayName("Reconciliação corrige disponibilidade alterada por fora da aplicação teste bem sucedido")
+    public void reconcilerRepairsDrift() {
+        var free = createBook("divergente-1");
+        var loaned = createBook("divergente-2");
+        var loan = loanService.create(loanRequest(loaned, "divergente@gmail.com"));
+        bookService.getById(free);
+        bookService.getById(loaned);
+
+        jdbcTemplate.update("UPDATE BOOK SET AVAILABLE = false, CURRENT_LOAN_ID = 999 WHERE ID = ?", free);
+        jdbcTemplate.update("UPDATE BOOK SET AVAILABLE = true, CURRENT_LOAN_ID = NULL WHERE ID = ?", loaned);
+
+        Assertions.assertTrue(reconciler.reconcile() >= 2);
+        assertAvailable(free);
+        assertLoaned(loaned, loan.getId());
+        Assertions.assertEquals(0, reconciler.reconcile());
+    }
+
+    @Test
+    @DisplayName("Reconciliação não desfaz empréstimo gravado durante a correção teste bem sucedido")
+    public void reconcilerKeepsConcurrentLoan() throws Exception {
+        var bookId = createBook("divergente-concorrente");
+        var other = createBook("divergente-mesmo-bloco");
+        jdbcTemplate.update("UPDATE BOOK SET CURRENT_LOAN_ID = 999 WHERE ID IN (?, ?)", bookId, other);
+
+        var loaned = new CountDownLatch(1);
+        var executor = Executors.newSingleThreadExecutor();
+        var loan = executor.submit(() -> transactionTemplate.execute(status -> {
+            var created = loanService.create(loanRequest(bookId, "divergente-concorrente@gmail.com"));
+            loaned.countDown();
+            sleep(300);
+            return created.getId();
+        }));
+        Assertions.assertTrue(loaned.await(10, TimeUnit.SECONDS));
+
+        Assertions.assertTrue(reconciler.reconcile() >= 1);
+
+        assertLoaned(bookId, loan.get(10, TimeUnit.SECONDS));
+        assertAvailable(other);
+        executor.shutdown();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void assertAvailable(Long bookId) {
+        var book = bookService.getById(bookId);
+        Assertions.assertTrue(book.getAvailable());
+        Assertions.assertNull(book.getCurrentLoanId());
+    }
+
+    private void assertLoaned(Long bookId, Long loanId) {
+        var book = bookService.getById(bookId);
+        Assertions.assertFalse(book.getAvailable());
+        Assertions.assertEquals(loanId, book.getCurrentLoanId());
+    }
+
+    private Long createBook(String isbn) {
+        return bookService.create(BookRequest.builder()
+                .nome("Livro " + isbn)
+                .autor("Autor Disponível")
+                .isbn(isbn)
+                .build()).getId();
+    }
+
+    private static LoanRequest loanRequest(Long book, String email) {
+        return LoanRequest.builder()
+                .customer("Cliente Disponível")
+                .customerEmail(email)
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .idBook(book)
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package com.tiagoferreira.library.unite;
+
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.repository.BookRepository;
+import com.tiagoferreira.library.service.book.IBookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.UUID;
+
+@SpringBootTest
+public class BookCacheTest {
+
+    @Autowired
+    IBookService bookService;
+
+    @SpyBean
+    BookRepository bookRepository;
+
+    private Book book;
+
+    @BeforeEach
+    public void setUp() {
+        book = bookRepository.save(Book.builder()
+                .nome("Harry Potter")
+                .autor("J.K.Rolling")
+                .isbn("cache-" + UUID.randomUUID())
+                .build());
+        Mockito.reset(bookRepository);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bookService.delete(book.getId());
+    }
+
+    @Test
+    @DisplayName("Buscar livro por id repetidas vezes consulta o banco uma unica vez")
+    public void getByIdIsCached() {
+        bookService.getById(book.getId());
+        bookService.getById(book.getId());
+
+        Mockito.verify(bookRepository, Mockito.times(1)).findById(book.getId());
+    }
+
+    @Test
+    @DisplayName("Atualizar livro invalida o cache")
+    public void updateEvictsCache() {
+        bookService.getById(book.getId());
+
+        bookService.update(BookRequest.builder()
+                .nome("Harry Potter 2")
+                .autor(book.getAutor())
+                .isbn(book.getIsbn())
+                .build(), book.getId(), null);
+
+        Assertions.assertEquals("Harry Potter 2", bookService.getById(book.getId()).getNome());
+    }
+}
@@ -5,10 +5,13 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tiagoferreira.library.entity.Book;
 import com.tiagoferreira.library.exception.DomainException;
+import com.tiagoferreira.library.model.CursorPage;
+import com.tiagoferreira.library.model.book.BookBatchResponse;
 import com.tiagoferreira.library.model.book.BookRequest;
 import com.tiagoferreira.library.model.book.BookResponse;
 import com.tiagoferreira.library.repository.BookRepository;
 import com.tiagoferreira.library.suport.PaginationImpl;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.ServletException;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Assertions;
@@ -22,11 +25,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.UnexpectedRollbackException;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -50,6 +55,9 @@ public class BookControllerTest {
     @Autowired
     ObjectMapper objectMapper;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @BeforeEach
     public void setUp() {
         Mockito.reset(bookRepository);
@@ -102,6 +110,86 @@ public class BookControllerTest {
         });
     }
 
+    @Test
+    @DisplayName("Criar livro com ISBN novo sem consultar o banco")
+    public void createWithNewIsbnSkipsLookup() throws Exception {
+        var book = BookRequest.builder()
+                .nome("Memórias Póstumas de Brás Cubas")
+                .autor("Machado de Assis")
+                .isbn("978-85-" + System.nanoTime())
+                .build();
+
+        MockHttpServletRequestBuilder request = post(API).content(objectMapper.writeValueAsString(book)).contentType(MediaType.APPLICATION_JSON);
+
+        Assertions.assertEquals(200, mvc.perform(request).andReturn().getResponse().getStatus());
+        Mockito.verify(bookRepository, Mockito.never()).existsByIsbn(book.getIsbn());
+
+        Assertions.assertThrows(ServletException.class, () -> {
+            mvc.perform(request);
+        });
+        Mockito.verify(bookRepository).existsByIsbn(book.getIsbn());
+    }
+
+    @Test
+    @DisplayName("Criar livros em lote teste com itens validos e invalidos")
+    public void createAllWithIsOk() throws Exception {
+        var existing = createBook();
+
+        var books = List.of(
+                BookRequest.builder().nome("O Cortiço").autor("Aluísio Azevedo").isbn("lote-1").build(),
+                BookRequest.builder().nome("Dom Casmurro").autor("Machado de Assis").isbn(existing.getIsbn()).build(),
+                BookRequest.builder().autor("Sem nome").isbn("lote-2").build(),
+                BookRequest.builder().nome("O Cortiço").autor("Aluísio Azevedo").isbn("lote-1").build(),
+                BookRequest.builder().nome("Iracema").autor("José de Alencar").isbn("lote-3").build());
+
+        MockHttpServletRequestBuilder request = post(API + "/batch").content(objectMapper.writeValueAsString(books)).contentType(MediaType.APPLICATION_JSON);
+
+        ResultActions result = mvc.perform(request);
+
+        final BookBatchResponse response = objectMapper.readValue(result.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {
+        });
+
+        Assertions.assertEquals(200, result.andReturn().getResponse().getStatus());
+        Assertions.assertEquals(2, response.getCreated());
+        Assertions.assertEquals(3, response.getFailed());
+        Assertions.assertTrue(response.getItems().get(0).isSuccess());
+        Assertions.assertFalse(response.getItems().get(1).isSuccess());
+        Assertions.assertFalse(response.getItems().get(2).isSuccess());
+        Assertions.assertFalse(response.getItems().get(3).isSuccess());
+        Assertions.assertTrue(response.getItems().get(4).isSuccess());
+        Assertions.assertTrue(bookRepository.existsById(response.getItems().get(4).getId()));
+    }
+
+    @Test
+    @DisplayName("Criar livros em lote teste mal sucedido, falha de transação reportada no lote")
+    public void createAllWithTransactionFailure() throws Exception {
+        Mockito.doThrow(new UnexpectedRollbackException("Transação marcada para rollback")).when(bookRepository).flush();
+
+        var books = List.of(
+                BookRequest.builder().nome("O Cortiço").autor("Aluísio Azevedo").isbn("lote-tx-1").build(),
+                BookRequest.builder().nome("Iracema").autor("José de Alencar").isbn("lote-tx-2").build());
+
+        var result = mvc.perform(post(API + "/batch").content(objectMapper.writeValueAsString(books)).contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse();
+        final BookBatchResponse response = objectMapper.readValue(result.getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {
+        });
+
+        Assertions.assertEquals(200, result.getStatus());
+        Assertions.assertEquals(0, response.getCreated());
+        Assertions.assertEquals(2, response.getFailed());
+        Assertions.assertEquals("Falha ao gravar lote", response.getItems().get(0).getMessage());
+    }
+
+    @Test
+    @DisplayName("Criar livros em lote teste mal sucedido, lote vazio")
+    public void createAllWithIsInvalid() throws Exception {
+        MockHttpServletRequestBuilder request = post(API + "/batch").content("[]").contentType(MediaType.APPLICATION_JSON);
+
+        Assertions.assertThrows(ServletException.class, () -> {
+            mvc.perform(request);
+        });
+    }
+
     @Test
     @DisplayName("Buscar livro por id teste bem sucedido")
     public void getBookWithIsOk() throws Exception {
@@ -129,6 +217,25 @@ public class BookControllerTest {
         });
     }
 
+    @Test
+    @DisplayName("Buscar livro por id registra metricas por operacao e resultado")
+    public void getBookRecordsServiceMetrics() throws Exception {
+        var book = createBook();
+
+        mvc.perform(get(API + "/" + book.getId()).contentType(MediaType.APPLICATION_JSON));
+        Assertions.assertThrows(ServletException.class, () -> {
+            mvc.perform(get(API + "/" + (book.getId() + 1000)).contentType(MediaType.APPLICATION_JSON));
+        });
+
+        var success = meterRegistry.find("library.service").tag("operation", "getById").tag("outcome", "success").timer();
+        var failure = meterRegistry.find("library.service").tag("operation", "getById").tag("outcome", "domain_error").timer();
+
+        Assertions.assertNotNull(success);
+        Assertions.assertNotNull(failure);
+        Assertions.assertTrue(failure.count() > 0);
+        Assertions.assertNotNull(meterRegistry.find("spring.data.repository.invocations").tag("method", "findById").timer());
+    }
+
     @Test
     @DisplayName("Deletar livro por id teste bem sucedido")
     public void deleteBookWithIsOk() throws Exception {
@@ -181,6 +288,97 @@ public class BookControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Buscar livro com If-None-Match igual a ETag retorna 304 sem carregar o livro")
+    public void getByIdNotModified() throws Exception {
+        var book = createBook();
+
+        var first = mvc.perform(get(API + "/" + book.getId())).andReturn().getResponse();
+        var etag = first.getHeader(HttpHeaders.ETAG);
+
+        Assertions.assertEquals(200, first.getStatus());
+        Assertions.assertNotNull(etag);
+
+        Mockito.reset(bookRepository);
+        var second = mvc.perform(get(API + "/" + book.getId()).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse();
+
+        Assertions.assertEquals(304, second.getStatus());
+        Assertions.assertEquals(0, second.getContentLength());
+        Mockito.verify(bookRepository, Mockito.never()).findById(book.getId());
+    }
+
+    @Test
+    @DisplayName("Buscar livros paginado com If-None-Match igual a ETag retorna 304")
+    public void findAllNotModified() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            createBookForList((long) i);
+        }
+
+        var first = mvc.perform(get(API + "/all").param("size", "3")).andReturn().getResponse();
+        var etag = first.getHeader(HttpHeaders.ETAG);
+
+        var second = mvc.perform(get(API + "/all").param("size", "3").header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse();
+        var otherPage = mvc.perform(get(API + "/all").param("size", "3").param("page", "1").header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse();
+
+        Assertions.assertEquals(304, second.getStatus());
+        Assertions.assertEquals(200, otherPage.getStatus());
+
+        var changed = objectMapper.readTree(first.getContentAsString(StandardCharsets.UTF_8)).get("content").get(0);
+        var bookUpdate = BookRequest.builder()
+                .nome(changed.get("nome").asText() + " editado")
+                .autor(changed.get("autor").asText())
+                .isbn(changed.get("isbn").asText())
+                .build();
+        mvc.perform(put(API + "/" + changed.get("id").asLong())
+                .content(objectMapper.writeValueAsString(bookUpdate)).contentType(MediaType.APPLICATION_JSON));
+
+        var afterUpdate = mvc.perform(get(API + "/all").param("size", "3").header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse();
+        Assertions.assertEquals(200, afterUpdate.getStatus());
+        Assertions.assertNotEquals(etag, afterUpdate.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    @DisplayName("Buscar livros no envelope enxuto teste bem sucedido, sem contagem total")
+    public void findAllLeanIsOk() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            createBookForList((long) i);
+        }
+
+        var response = mvc.perform(get(API + "/all").param("size", "3").param("lean", "true")).andReturn().getResponse();
+        var body = objectMapper.readTree(response.getContentAsString(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertEquals(3, body.get("content").size());
+        Assertions.assertTrue(body.get("hasNext").asBoolean());
+        Assertions.assertFalse(body.has("totalElements"));
+    }
+
+    @Test
+    @DisplayName("Atualizar livro com If-Match teste bem sucedido e mal sucedido, versão desatualizada")
+    public void updateBookWithIfMatch() throws Exception {
+        var book = createBook();
+        var etag = mvc.perform(get(API + "/" + book.getId())).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        var bookUpdate = BookRequest.builder()
+                .nome("Harry Potter 2")
+                .autor(book.getAutor())
+                .isbn(book.getIsbn())
+                .build();
+
+        var updated = mvc.perform(put(API + "/" + book.getId())
+                .header(HttpHeaders.IF_MATCH, etag)
+                .content(objectMapper.writeValueAsString(bookUpdate)).contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        Assertions.assertEquals(200, updated.getStatus());
+        Assertions.assertNotEquals(etag, updated.getHeader(HttpHeaders.ETAG));
+
+        var lost = mvc.perform(put(API + "/" + book.getId())
+                .header(HttpHeaders.IF_MATCH, etag)
+                .content(objectMapper.writeValueAsString(bookUpdate)).contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        Assertions.assertEquals(412, lost.getStatus());
+    }
+
     @Test
     @DisplayName("Atualizar Book teste mal sucedido")
     public void updateBookWithIsInvalid() throws Exception {
@@ -259,12 +457,77 @@ public class BookControllerTest {
         Assertions.assertNotEquals(response.getContent().size(), totalExpected);
     }
 
+    @Rollback
+    @ParameterizedTest
+    @CsvSource({"5, 20", "7, 20", "50, 20"})
+    @DisplayName("Buscar todos os livros por cursor teste bem sucedido")
+    public void findAfterBookWithIsOk(int size, int fakeSize) throws Exception {
+
+        for (int i = 1; i <= fakeSize; i++) {
+            createBookForList((long) i);
+        }
+
+        List<BookResponse> livros = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            var requestBuilder = get(API + "/cursor")
+                    .param("size", String.valueOf(size))
+                    .contentType(MediaType.APPLICATION_JSON);
+            if (cursor != null) {
+                requestBuilder.param("cursor", cursor);
+            }
+
+            final CursorPage<BookResponse> response = objectMapper.readValue(mvc.perform(requestBuilder).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {
+            });
+
+            Assertions.assertTrue(response.getContent().size() <= size);
+            livros.addAll(response.getContent());
+            cursor = response.getNext();
+        } while (cursor != null);
+
+        Assertions.assertEquals(bookRepository.count(), livros.size());
+        for (int i = 1; i < livros.size(); i++) {
+            Assertions.assertTrue(livros.get(i - 1).getId() < livros.get(i).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Buscar todos os livros por cursor teste mal sucedido, cursor inválido")
+    public void findAfterBookWithIsInvalid() {
+        MockHttpServletRequestBuilder request = get(API + "/cursor")
+                .param("cursor", "não é um cursor")
+                .contentType(MediaType.APPLICATION_JSON);
+
+        Assertions.assertThrows(ServletException.class, () -> {
+            mvc.perform(request);
+        });
+    }
+
+    @Test
+    @DisplayName("Exportar livros em NDJSON teste bem sucedido")
+    public void exportBookWithIsOk() throws Exception {
+        for (int i = 1; i <= 20; i++) {
+            createBookForList((long) i);
+        }
+
+        MockHttpServletRequestBuilder request = get(API + "/export");
+
+        var response = mvc.perform(request).andReturn().getResponse();
+        var lines = response.getContentAsString(StandardCharsets.UTF_8).lines().toList();
+
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertTrue(response.getContentType().startsWith("application/x-ndjson"));
+        Assertions.assertEquals(bookRepository.count(), lines.size());
+        Assertions.assertNotNull(objectMapper.readValue(lines.get(0), BookResponse.class).getId());
+    }
+
     private Book createBookForList(Long id) {
         var book = Book.builder()
                 .id(id)
                 .nome("Harry Potter " + id)
                 .autor("J.K.Rolling")
-                .isbn("adsa")
+                .isbn("adsa-" + id)
                 .build();
 
         return bookRepository.save(book);
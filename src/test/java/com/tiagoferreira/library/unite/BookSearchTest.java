@@ -0,0 +1,116 @@
+package com.tiagoferreira.library.unite;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.model.book.BookResponse;
+import com.tiagoferreira.library.service.book.IBookService;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+public class BookSearchTest {
+
+    private final String API = "/books/search";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    IBookService bookService;
+
+    private final List<Book> books = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        books.add(createBook("Memórias Póstumas de Brás Cubas", "Machado de Assis"));
+        books.add(createBook("Dom Casmurro", "Machado de Assis"));
+        books.add(createBook("Iracema", "José de Alencar"));
+        books.add(createBook("O Guarani", "José de Alencar"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        books.forEach(book -> bookService.delete(book.getId()));
+        books.clear();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"machado, 2", "MACHADO ASSIS, 2", "bras, 1", "memorias cubas, 1", "jose alen, 2", "casm, 1", "tolkien, 0"})
+    @DisplayName("Buscar livros por titulo e autor teste bem sucedido")
+    public void searchWithIsOk(String query, int totalExpected) throws Exception {
+        var response = search(query);
+
+        Assertions.assertEquals(totalExpected, response.size());
+    }
+
+    @Test
+    @DisplayName("Buscar livros ordena pelo termo mais relevante")
+    public void searchRanksTitleAboveAuthor() throws Exception {
+        var alencar = createBook("Alencar e seus Romances", "Autor Desconhecido");
+        books.add(alencar);
+
+        var response = search("alencar");
+
+        Assertions.assertEquals(3, response.size());
+        Assertions.assertEquals(alencar.getId(), response.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Buscar livros nao encontra livro removido ou com titulo alterado")
+    public void searchFollowsUpdatesAndDeletes() throws Exception {
+        var iracema = books.get(2);
+        bookService.update(BookRequest.builder().nome("Ubirajara").autor(iracema.getAutor()).isbn(iracema.getIsbn()).build(), iracema.getId(), null);
+        var guarani = books.remove(3);
+        bookService.delete(guarani.getId());
+
+        Assertions.assertEquals(0, search("iracema").size());
+        Assertions.assertEquals(1, search("ubirajara").size());
+        Assertions.assertEquals(0, search("guarani").size());
+    }
+
+    @Test
+    @DisplayName("Buscar livros teste mal sucedido, busca vazia")
+    public void searchWithIsInvalid() {
+        Assertions.assertThrows(ServletException.class, () -> {
+            mvc.perform(get(API).param("q", " ").contentType(MediaType.APPLICATION_JSON));
+        });
+    }
+
+    private List<BookResponse> search(String query) throws Exception {
+        var result = mvc.perform(get(API).param("q", query).contentType(MediaType.APPLICATION_JSON)).andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {
+        });
+    }
+
+    private Book createBook(String nome, String autor) {
+        return bookService.create(BookRequest.builder()
+                .nome(nome)
+                .autor(autor)
+                .isbn("busca-" + UUID.randomUUID())
+                .build());
+    }
+}
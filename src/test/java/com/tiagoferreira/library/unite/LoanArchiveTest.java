@@ -0,0 +1,160 @@
+package com.tiagoferreira.library.unite;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagoferreira.library.exception.DomainException;
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.repository.LoanArchiveRepository;
+import com.tiagoferreira.library.repository.LoanRepository;
+import com.tiagoferreira.library.service.book.IBookService;
+import com.tiagoferreira.library.service.loan.ILoanService;
+import com.tiagoferreira.library.service.loan.LoanArchiver;
+import com.tiagoferreira.library.service.stats.IStatsService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Sem @Transactional: o arquivamento abre uma transação por lote. Lotes de 2 para exercitar várias iterações.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive;DB_CLOSE_DELAY=-1",
+        "library.loan.archive.after-days=30",
+        "library.loan.archive.batch-size=2",
+        "library.loan.archive.pause=PT0S"
+})
+public class LoanArchiveTest {
+
+    @Autowired
+    IBookService bookService;
+
+    @Autowired
+    ILoanService loanService;
+
+    @Autowired
+    IStatsService statsService;
+
+    @Autowired
+    LoanArchiver archiver;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    LoanArchiveRepository archiveRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("Arquivar empréstimos devolvidos há mais tempo que o limite, em lotes, teste bem sucedido")
+    public void archiveOldReturnedLoans() throws Exception {
+        var old = new ArrayList<Long>();
+        for (int i = 0; i < 5; i++) {
+            old.add(returnedLoan("arquivo-antigo-" + i, 60));
+        }
+        var recent = returnedLoan("arquivo-recente", 5);
+        var open = loanService.create(loanRequest(createBook("arquivo-aberto"), "aberto@gmail.com")).getId();
+        loanService.findById(old.get(0));
+        var loansBefore = statsService.summary(1).getLoans();
+
+        Assertions.assertEquals(5, archiver.archive());
+        Assertions.assertEquals(0, archiver.archive());
+
+        old.forEach(id -> {
+            Assertions.assertFalse(loanRepository.existsById(id));
+            Assertions.assertTrue(archiveRepository.existsById(id));
+        });
+        Assertions.assertTrue(loanRepository.existsById(recent));
+        Assertions.assertTrue(loanRepository.existsById(open));
+        Assertions.assertThrows(DomainException.class, () -> loanService.findById(old.get(0)));
+
+        var archived = new HashSet<Long>();
+        String cursor = null;
+        do {
+            var request = get("/loans/cursor").param("archived", "true").param("size", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            var page = objectMapper.readTree(mvc.perform(request).andReturn().getResponse()
+                    .getContentAsString(StandardCharsets.UTF_8));
+            page.get("content").forEach(loan -> {
+                Assertions.assertTrue(loan.get("returned").asBoolean());
+                archived.add(loan.get("id").asLong());
+            });
+            cursor = page.get("next").isNull() ? null : page.get("next").asText();
+        } while (cursor != null);
+        Assertions.assertTrue(archived.containsAll(old));
+
+        var exported = new HashSet<Long>();
+        var lines = mvc.perform(get("/loans/export").param("archived", "true")).andReturn().getResponse()
+                .getContentAsString(StandardCharsets.UTF_8).split("\n");
+        for (var line : lines) {
+            exported.add(objectMapper.readTree(line).get("id").asLong());
+        }
+        Assertions.assertTrue(exported.containsAll(old));
+        Assertions.assertTrue(exported.containsAll(List.of(recent, open)));
+
+        statsService.rebuild();
+        Assertions.assertEquals(loansBefore, statsService.summary(1).getLoans());
+    }
+
+    @Test
+    @DisplayName("Arquivar empréstimos teste mal sucedido, empréstimo reaberto não vai para o arquivo")
+    public void reopenedLoanIsNotArchived() {
+        var id = returnedLoan("arquivo-reaberto", 60);
+
+        loanService.retornedBook(id, LoanRequest.builder().returned(false).build(), null);
+        archiver.archive();
+
+        Assertions.assertTrue(loanRepository.existsById(id));
+        Assertions.assertFalse(archiveRepository.existsById(id));
+        Assertions.assertNull(loanRepository.findById(id).orElseThrow().getReturnedAt());
+    }
+
+    private Long returnedLoan(String isbn, int returnedDaysAgo) {
+        var loan = loanService.create(loanRequest(createBook(isbn), isbn + "@gmail.com"));
+        loanService.retornedBook(loan.getId(), LoanRequest.builder().returned(true).build(), null);
+        jdbcTemplate.update("UPDATE LOAN SET RETURNED_AT = ? WHERE ID = ?",
+                LocalDate.now().minusDays(returnedDaysAgo), loan.getId());
+        return loan.getId();
+    }
+
+    private Long createBook(String isbn) {
+        return bookService.create(BookRequest.builder()
+                .nome("Livro " + isbn)
+                .autor("Autor Arquivo")
+                .isbn(isbn)
+                .build()).getId();
+    }
+
+    private static LoanRequest loanRequest(Long book, String email) {
+        return LoanRequest.builder()
+                .customer("Cliente Arquivo")
+                .customerEmail(email)
+                .loanDate(LocalDate.now().minusDays(90))
+                .returned(false)
+                .idBook(book)
+                .build();
+    }
+}
@@ -0,0 +1,164 @@
+package com.tiagoferreira.library.unite;
+
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.exception.DomainException;
+import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.model.loan.LoanReturnRequest;
+import com.tiagoferreira.library.repository.BookRepository;
+import com.tiagoferreira.library.repository.LoanRepository;
+import com.tiagoferreira.library.service.book.IBookService;
+import com.tiagoferreira.library.service.loan.ILoanService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+public class LoanConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    ILoanService loanService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    private Book book;
+
+    @Autowired
+    IBookService bookService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void tearDown() {
+        if (book != null) {
+            loanRepository.findAll().stream()
+                    .filter(loan -> loan.getBook() != null && book.getId().equals(loan.getBook().getId()))
+                    .forEach(loan -> loanService.delete(loan.getId()));
+            bookService.delete(book.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Emprestar o mesmo livro em paralelo gera apenas um emprestimo ativo")
+    public void createConcurrentLoansForSameBook() throws Exception {
+        book = bookRepository.save(Book.builder()
+                .nome("Harry Potter")
+                .autor("J.K.Rolling")
+                .isbn("concorrencia-" + UUID.randomUUID())
+                .build());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            var request = LoanRequest.builder()
+                    .customer("Fulano " + i)
+                    .customerEmail("fulano" + i + "@gmail.com")
+                    .loanDate(LocalDate.now())
+                    .returned(false)
+                    .idBook(book.getId())
+                    .build();
+
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    loanService.create(request);
+                    return true;
+                } catch (DomainException e) {
+                    return false;
+                }
+            }));
+        }
+
+        start.countDown();
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                created++;
+            }
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(1, created);
+        Assertions.assertTrue(loanRepository.existsByBookIdAndReturnedFalse(book.getId()));
+    }
+
+    @Test
+    @DisplayName("Devolver em lote um emprestimo devolvido em paralelo libera o contador do cliente uma unica vez")
+    public void returnAllConcurrentWithPatch() throws Exception {
+        var email = "lote-" + UUID.randomUUID() + "@gmail.com";
+        var first = loanService.create(loanRequest(email));
+        var second = loanService.create(loanRequest(email));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch flushed = new CountDownLatch(1);
+        try {
+            Future<?> patch = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                loanService.retornedBook(first.getId(), LoanRequest.builder().returned(true).build(), null);
+                loanRepository.flush();
+                flushed.countDown();
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            Assertions.assertTrue(flushed.await(30, TimeUnit.SECONDS));
+
+            var response = loanService.returnAll(LoanReturnRequest.builder().loanIds(List.of(first.getId())).build());
+            patch.get(30, TimeUnit.SECONDS);
+
+            Assertions.assertEquals(0, response.getReturned());
+            Assertions.assertEquals(List.of(first.getId()), response.getNotMatched());
+            Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+                    "select OPEN_LOANS from CUSTOMER_LOAN_COUNTER where CUSTOMER_EMAIL = ?", Integer.class, email));
+        } finally {
+            executor.shutdown();
+            for (var loan : List.of(first, second)) {
+                loanService.delete(loan.getId());
+                bookService.delete(loan.getBook().getId());
+            }
+        }
+    }
+
+    private LoanRequest loanRequest(String email) {
+        var saved = bookRepository.save(Book.builder()
+                .nome("Harry Potter")
+                .autor("J.K.Rolling")
+                .isbn("lote-" + UUID.randomUUID())
+                .build());
+        return LoanRequest.builder()
+                .customer("Fulano")
+                .customerEmail(email)
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .idBook(saved.getId())
+                .build();
+    }
+}
@@ -6,11 +6,16 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tiagoferreira.library.entity.Book;
 import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.model.CursorPage;
 import com.tiagoferreira.library.model.book.BookResponse;
 import com.tiagoferreira.library.model.loan.LoanRequest;
 import com.tiagoferreira.library.model.loan.LoanResponse;
+import com.tiagoferreira.library.model.loan.LoanReturnRequest;
+import com.tiagoferreira.library.model.loan.LoanReturnResponse;
 import com.tiagoferreira.library.repository.BookRepository;
 import com.tiagoferreira.library.repository.LoanRepository;
+import com.tiagoferreira.library.repository.ScanCheckpointRepository;
+import com.tiagoferreira.library.service.loan.OverdueLoanScanner;
 import com.tiagoferreira.library.suport.PaginationImpl;
 import jakarta.servlet.ServletException;
 import jakarta.transaction.Transactional;
@@ -25,6 +30,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.web.servlet.MockMvc;
@@ -32,16 +38,19 @@ import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 @Rollback
 @Transactional
 @AutoConfigureMockMvc
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "library.loan.customer.max-open-loans=5")
 public class LoanControllerTest {
 
     private final String API = "/loans";
@@ -55,6 +64,12 @@ public class LoanControllerTest {
     @Autowired
     MockMvc mvc;
 
+    @Autowired
+    OverdueLoanScanner overdueLoanScanner;
+
+    @Autowired
+    ScanCheckpointRepository checkpointRepository;
+
     @SpyBean
     LoanRepository loanRepository;
 
@@ -161,6 +176,22 @@ public class LoanControllerTest {
         Assertions.assertEquals(true, response.getReturned());
     }
 
+    @Test
+    @DisplayName("Devolver livro sem informar returned teste bem sucedido, empréstimo continua em aberto")
+    public void retornedBookWithoutReturned() throws Exception {
+        var loanBD = postLoan("sem-returned@gmail.com");
+
+        var result = mvc.perform(patch(API + "/" + loanBD.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")).andReturn();
+
+        var response = objectMapper.readValue(result.getResponse().getContentAsString(StandardCharsets.UTF_8), LoanResponse.class);
+        Assertions.assertEquals(200, result.getResponse().getStatus());
+        Assertions.assertEquals(false, response.getReturned());
+        Assertions.assertEquals(false, loanRepository.findById(loanBD.getId()).orElseThrow().getReturned());
+        Assertions.assertFalse(bookRepository.findById(loanBD.getBook().getId()).orElseThrow().getAvailable());
+    }
+
     @Test
     @DisplayName("Devolver livro teste mal sucedido, Emprestimo não encontrado")
     public void retornedBookIsInvalid() throws JsonProcessingException {
@@ -178,6 +209,67 @@ public class LoanControllerTest {
     }
 
 
+    @Test
+    @DisplayName("Devolver livros em lote por id de emprestimo teste bem sucedido")
+    public void returnAllByLoanIsOk() throws Exception {
+        var first = createLoan();
+        var second = createLoan();
+        var unknownId = second.getId() + 1000;
+
+        var request = LoanReturnRequest.builder()
+                .loanIds(List.of(first.getId(), second.getId(), unknownId))
+                .build();
+
+        ResultActions result = mvc.perform(patch(API + "/returns")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+
+        final LoanReturnResponse response = objectMapper.readValue(
+                result.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {
+                });
+
+        Assertions.assertEquals(200, result.andReturn().getResponse().getStatus());
+        Assertions.assertEquals(2, response.getReturned());
+        Assertions.assertEquals(List.of(unknownId), response.getNotMatched());
+        Assertions.assertTrue(loanRepository.findById(first.getId()).orElseThrow().getReturned());
+        Assertions.assertTrue(loanRepository.findById(second.getId()).orElseThrow().getReturned());
+    }
+
+    @Test
+    @DisplayName("Devolver livros em lote por id de livro teste bem sucedido")
+    public void returnAllByBookIsOk() throws Exception {
+        var loan = createLoan();
+        var bookWithoutLoan = createBook();
+
+        var request = LoanReturnRequest.builder()
+                .bookIds(List.of(loan.getBook().getId(), bookWithoutLoan.getId()))
+                .build();
+
+        ResultActions result = mvc.perform(patch(API + "/returns")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+
+        final LoanReturnResponse response = objectMapper.readValue(
+                result.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {
+                });
+
+        Assertions.assertEquals(1, response.getReturned());
+        Assertions.assertEquals(List.of(bookWithoutLoan.getId()), response.getNotMatched());
+        Assertions.assertFalse(loanRepository.existsByBookIdAndReturnedFalse(loan.getBook().getId()));
+    }
+
+    @Test
+    @DisplayName("Devolver livros em lote teste mal sucedido, nenhum id informado")
+    public void returnAllIsInvalid() {
+        MockHttpServletRequestBuilder request = patch(API + "/returns")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}");
+
+        Assertions.assertThrows(ServletException.class, () -> {
+            mvc.perform(request);
+        });
+    }
+
     @Test
     @DisplayName("Deletar emprestimo teste bem sucedido")
     public void deleteLoanIsOk() {
@@ -313,6 +405,134 @@ public class LoanControllerTest {
         Assertions.assertNotEquals(response.getContent().size(), totalExpected);
     }
 
+    @Rollback
+    @ParameterizedTest
+    @CsvSource({"5, 20", "7, 20", "50, 20"})
+    @DisplayName("Buscar todos os emprestimos por cursor teste bem sucedido")
+    public void findAfterLoanWithIsOk(int size, int fakeSize) throws Exception {
+
+        for (int i = 1; i <= fakeSize; i++) {
+            createLoanForList((long) i);
+        }
+
+        List<LoanResponse> emprestimos = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            var requestBuilder = get(API + "/cursor")
+                    .param("size", String.valueOf(size))
+                    .contentType(MediaType.APPLICATION_JSON);
+            if (cursor != null) {
+                requestBuilder.param("cursor", cursor);
+            }
+
+            final CursorPage<LoanResponse> response = objectMapper.readValue(mvc.perform(requestBuilder).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {
+            });
+
+            Assertions.assertTrue(response.getContent().size() <= size);
+            emprestimos.addAll(response.getContent());
+            cursor = response.getNext();
+        } while (cursor != null);
+
+        Assertions.assertEquals(loanRepository.count(), emprestimos.size());
+    }
+
+    @Test
+    @DisplayName("Buscar todos os emprestimos por cursor teste mal sucedido, tamanho inválido")
+    public void findAfterLoanWithIsInvalid() {
+        MockHttpServletRequestBuilder request = get(API + "/cursor")
+                .param("size", "0")
+                .contentType(MediaType.APPLICATION_JSON);
+
+        Assertions.assertThrows(ServletException.class, () -> {
+            mvc.perform(request);
+        });
+    }
+
+    @Test
+    @DisplayName("Exportar emprestimos em NDJSON teste bem sucedido")
+    public void exportLoanWithIsOk() throws Exception {
+        for (int i = 1; i <= 20; i++) {
+            createLoanForList((long) i);
+        }
+
+        MockHttpServletRequestBuilder request = get(API + "/export");
+
+        var response = mvc.perform(request).andReturn().getResponse();
+        var lines = response.getContentAsString(StandardCharsets.UTF_8).lines().toList();
+
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertEquals(loanRepository.count(), lines.size());
+        Assertions.assertNotNull(objectMapper.readValue(lines.get(0), LoanResponse.class).getBook());
+    }
+
+    @Test
+    @DisplayName("Buscar emprestimos atrasados por cursor teste bem sucedido")
+    public void findOverdueLoanWithIsOk() throws Exception {
+        for (int i = 1; i <= 7; i++) {
+            createLoanWithDate(LocalDate.now().minusDays(30 + i % 3), false);
+        }
+        createLoanWithDate(LocalDate.now().minusDays(30), true);
+        createLoanWithDate(LocalDate.now(), false);
+
+        List<LoanResponse> emprestimos = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            var requestBuilder = get(API + "/overdue")
+                    .param("size", "3")
+                    .contentType(MediaType.APPLICATION_JSON);
+            if (cursor != null) {
+                requestBuilder.param("cursor", cursor);
+            }
+
+            final CursorPage<LoanResponse> response = objectMapper.readValue(mvc.perform(requestBuilder).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {
+            });
+
+            emprestimos.addAll(response.getContent());
+            cursor = response.getNext();
+        } while (cursor != null);
+
+        Assertions.assertEquals(7, emprestimos.size());
+        Assertions.assertEquals(7, emprestimos.stream().map(LoanResponse::getId).distinct().count());
+        Assertions.assertTrue(emprestimos.stream().noneMatch(LoanResponse::getReturned));
+    }
+
+    @Test
+    @DisplayName("Varredura de emprestimos atrasados teste bem sucedido, retoma a partir do checkpoint")
+    public void scanOverdueLoanIsOk() {
+        for (int i = 1; i <= 5; i++) {
+            createLoanWithDate(LocalDate.now().minusDays(20 + i), false);
+        }
+        createLoanWithDate(LocalDate.now(), false);
+
+        Assertions.assertEquals(5, overdueLoanScanner.scan());
+        Assertions.assertEquals(0, overdueLoanScanner.scan());
+
+        createLoanWithDate(LocalDate.now().minusDays(15), false);
+
+        Assertions.assertEquals(1, overdueLoanScanner.scan());
+    }
+
+    @Test
+    @DisplayName("Varredura de emprestimos atrasados teste bem sucedido, varredura completa encontra data anterior ao checkpoint")
+    public void scanOverdueLoanBelowCheckpoint() {
+        for (int i = 1; i <= 3; i++) {
+            createLoanWithDate(LocalDate.now().minusDays(20 + i), false);
+        }
+        Assertions.assertEquals(3, overdueLoanScanner.scan());
+
+        createLoanWithDate(LocalDate.now().minusDays(40), false);
+        Assertions.assertEquals(0, overdueLoanScanner.scan());
+
+        var full = checkpointRepository.findById(OverdueLoanScanner.FULL_RESCAN_CHECKPOINT).orElseThrow();
+        full.setUpdatedAt(full.getUpdatedAt().minus(Duration.ofDays(2)));
+        checkpointRepository.save(full);
+
+        Assertions.assertEquals(4, overdueLoanScanner.scan());
+        Assertions.assertEquals(0, overdueLoanScanner.scan());
+    }
+
     @Test
     @DisplayName("Buscar emprestimo por id teste bem sucedido")
     public void findByIdIsOk() throws Exception {
@@ -332,6 +552,36 @@ public class LoanControllerTest {
         Assertions.assertEquals(loanBD.getCustomer(), response.getCustomer());
     }
 
+    @Test
+    @DisplayName("Buscar emprestimo com If-None-Match igual a ETag retorna 304")
+    public void findByIdNotModified() throws Exception {
+        var loanBD = createLoan();
+
+        var etag = mvc.perform(get(API + "/" + loanBD.getId())).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        var response = mvc.perform(get(API + "/" + loanBD.getId()).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse();
+
+        Assertions.assertNotNull(etag);
+        Assertions.assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("Devolver emprestimo com If-Match desatualizado teste mal sucedido")
+    public void retornedBookWithStaleIfMatch() throws Exception {
+        var loanBD = createLoan();
+        var etag = mvc.perform(get(API + "/" + loanBD.getId())).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        var request = LoanRequest.builder().returned(true).build();
+        var returned = mvc.perform(patch(API + "/" + loanBD.getId())
+                .header(HttpHeaders.IF_MATCH, etag)
+                .content(objectMapper.writeValueAsString(request)).contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+        var stale = mvc.perform(patch(API + "/" + loanBD.getId())
+                .header(HttpHeaders.IF_MATCH, etag)
+                .content(objectMapper.writeValueAsString(request)).contentType(MediaType.APPLICATION_JSON)).andReturn().getResponse();
+
+        Assertions.assertEquals(200, returned.getStatus());
+        Assertions.assertEquals(412, stale.getStatus());
+    }
+
     @Test
     @DisplayName("Buscar emprestimo por id teste mal sucedido, Emprestimo não encontrado")
     public void findByIdIsInvalid() throws Exception {
@@ -345,6 +595,67 @@ public class LoanControllerTest {
         });
     }
 
+    @Test
+    @DisplayName("Listar empréstimos em aberto do cliente por e-mail teste bem sucedido")
+    public void findOpenByCustomerIsOk() throws Exception {
+        var first = postLoan(" Cliente@Gmail.com ");
+        postLoan("cliente@gmail.com");
+        postLoan("outro@gmail.com");
+        mvc.perform(patch(API + "/" + first.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(LoanRequest.builder().returned(true).build())));
+
+        var result = mvc.perform(get(API + "/customer/CLIENTE@gmail.com")).andReturn();
+        final List<LoanResponse> response = objectMapper.readValue(
+                result.getResponse().getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {
+                });
+
+        Assertions.assertEquals(200, result.getResponse().getStatus());
+        Assertions.assertEquals(1, response.size());
+        Assertions.assertEquals("cliente@gmail.com", response.get(0).getCustomerEmail());
+    }
+
+    @Test
+    @DisplayName("Criar emprestimo teste mal sucedido, cliente no limite de empréstimos em aberto")
+    public void createOverCustomerLimitIsInvalid() throws Exception {
+        var loans = new ArrayList<LoanResponse>();
+        for (int i = 0; i < 5; i++) {
+            loans.add(postLoan("limite@gmail.com"));
+        }
+
+        var loan = LoanRequest.builder()
+                .customer("Fulano")
+                .customerEmail("limite@gmail.com")
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .idBook(createBook().getId())
+                .build();
+        Assertions.assertThrows(ServletException.class, () -> mvc.perform(post(API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loan))));
+
+        mvc.perform(patch(API + "/returns")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoanReturnRequest(List.of(loans.get(0).getId()), null))));
+
+        Assertions.assertEquals("limite@gmail.com", postLoan("limite@gmail.com").getCustomerEmail());
+    }
+
+    private LoanResponse postLoan(String customerEmail) throws Exception {
+        var loan = LoanRequest.builder()
+                .customer("Fulano")
+                .customerEmail(customerEmail)
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .idBook(createBook().getId())
+                .build();
+
+        var result = mvc.perform(post(API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loan))).andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(StandardCharsets.UTF_8), LoanResponse.class);
+    }
+
     private Loan createLoanForList(Long id) {
         var loan = Loan.builder()
                 .id(id)
@@ -358,11 +669,23 @@ public class LoanControllerTest {
         return loanRepository.save(loan);
     }
 
+    private Loan createLoanWithDate(LocalDate loanDate, boolean returned) {
+        var loan = Loan.builder()
+                .customer("Fulano")
+                .loanDate(loanDate)
+                .returned(returned)
+                .book(createBook())
+                .customerEmail("teste@gmail.com")
+                .build();
+
+        return loanRepository.save(loan);
+    }
+
     public Book createBook() {
         var book = Book.builder()
                 .nome("Harry Potter")
                 .autor("J.K.Rolling")
-                .isbn("adsa")
+                .isbn("adsa-" + UUID.randomUUID())
                 .build();
 
         return bookRepository.save(book);
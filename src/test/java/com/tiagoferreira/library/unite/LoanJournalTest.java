@@ -0,0 +1,164 @@
+package com.tiagoferreira.library.unite;
+
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.model.loan.LoanReturnRequest;
+import com.tiagoferreira.library.service.book.IBookService;
+import com.tiagoferreira.library.service.loan.ILoanService;
+import com.tiagoferreira.library.service.loan.LoanJournal;
+import com.tiagoferreira.library.service.loan.LoanJournalEvent;
+import com.tiagoferreira.library.service.loan.LoanJournalProjection;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Sem @Transactional: os eventos só vão para o journal após o commit.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:journal;DB_CLOSE_DELAY=-1",
+        "library.loan.journal.enabled=true"
+})
+public class LoanJournalTest {
+
+    @TempDir
+    static Path journalDir;
+
+    @Autowired
+    ILoanService loanService;
+
+    @Autowired
+    IBookService bookService;
+
+    @Autowired
+    LoanJournal journal;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("library.loan.journal.dir", () -> journalDir.toString());
+    }
+
+    @Test
+    @DisplayName("Criar e devolver empréstimo grava eventos e atualiza a projeção teste bem sucedido")
+    public void createAndReturnAreJournaled() throws Exception {
+        var book = createBook("journal-1");
+        var loan = loanService.create(loanRequest(book, "Cliente Journal"));
+
+        Assertions.assertFalse(journal.projection().isAvailable(book));
+        Assertions.assertEquals(loan.getId(), journal.projection().activeLoan(book).orElseThrow());
+
+        loanService.retornedBook(loan.getId(), LoanRequest.builder().returned(true).build(), null);
+
+        Assertions.assertTrue(journal.projection().isAvailable(book));
+        Assertions.assertEquals(List.of(LoanJournalEvent.Type.CREATED, LoanJournalEvent.Type.RETURNED),
+                types(journal.projection().customerHistory("Cliente Journal")));
+
+        var replayed = new LoanJournalProjection(100);
+        LoanJournal.replay(journalDir, replayed::apply);
+        Assertions.assertTrue(replayed.isAvailable(book));
+        Assertions.assertEquals(2, replayed.bookHistory(book).size());
+    }
+
+    @Test
+    @DisplayName("Devolução em lote gravada no journal teste bem sucedido")
+    public void returnAllIsJournaled() {
+        var book = createBook("journal-2");
+        loanService.create(loanRequest(book, "Cliente Lote"));
+
+        loanService.returnAll(new LoanReturnRequest(null, List.of(book)));
+
+        Assertions.assertTrue(journal.projection().isAvailable(book));
+        Assertions.assertEquals(List.of(LoanJournalEvent.Type.CREATED, LoanJournalEvent.Type.RETURNED),
+                types(journal.projection().customerHistory("Cliente Lote")));
+    }
+
+    @Test
+    @DisplayName("Journal troca de segmento e ignora registro corrompido no fim teste bem sucedido")
+    public void rolloverAndTornTail(@TempDir Path dir) throws Exception {
+        var writer = new LoanJournal(dir, 256, Duration.ofMillis(5), 100);
+        for (long i = 1; i <= 20; i++) {
+            writer.append(new LoanJournalEvent(LoanJournalEvent.Type.CREATED, Instant.now(), i, i,
+                    "Cliente " + i, null, LocalDate.now(), false));
+        }
+        writer.close();
+
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(dir)) {
+            segments = files.sorted().toList();
+        }
+        Assertions.assertTrue(segments.size() > 1);
+
+        try (var last = new RandomAccessFile(segments.get(segments.size() - 1).toFile(), "rw")) {
+            var offset = 0L;
+            var lastRecord = 0L;
+            for (var length = last.readInt(); length > 0; length = last.readInt()) {
+                lastRecord = offset;
+                offset += 8 + length;
+                last.seek(offset);
+            }
+            last.seek(lastRecord + 4);
+            var crc = last.readInt();
+            last.seek(lastRecord + 4);
+            last.writeInt(crc ^ 1);
+        }
+
+        var reopened = new LoanJournal(dir, 256, Duration.ofMillis(5), 100);
+        Assertions.assertFalse(reopened.projection().isAvailable(19L));
+        Assertions.assertTrue(reopened.projection().isAvailable(20L));
+
+        reopened.append(new LoanJournalEvent(LoanJournalEvent.Type.RETURNED, Instant.now(), 1L, 1L,
+                null, null, null, true));
+        reopened.close();
+        Assertions.assertEquals(20, LoanJournal.replay(dir, event -> { }));
+    }
+
+    @Test
+    @DisplayName("Projeção guarda só os eventos mais recentes de cada histórico teste bem sucedido")
+    public void historyKeepsLatestEvents() {
+        var projection = new LoanJournalProjection(2);
+        for (long i = 1; i <= 3; i++) {
+            projection.apply(new LoanJournalEvent(LoanJournalEvent.Type.CREATED, Instant.now(), i, 7L,
+                    "Cliente Histórico", null, LocalDate.now(), true));
+        }
+
+        Assertions.assertEquals(List.of(2L, 3L),
+                projection.customerHistory("Cliente Histórico").stream().map(LoanJournalEvent::loanId).toList());
+        Assertions.assertEquals(List.of(2L, 3L), projection.bookHistory(7L).stream().map(LoanJournalEvent::loanId).toList());
+    }
+
+    private Long createBook(String isbn) {
+        return bookService.create(BookRequest.builder()
+                .nome("Harry Potter")
+                .autor("J.K.Rolling")
+                .isbn(isbn)
+                .build()).getId();
+    }
+
+    private static LoanRequest loanRequest(Long book, String customer) {
+        return LoanRequest.builder()
+                .customer(customer)
+                .customerEmail("teste@gmail.com")
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .idBook(book)
+                .build();
+    }
+
+    private static List<LoanJournalEvent.Type> types(List<LoanJournalEvent> events) {
+        return events.stream().map(LoanJournalEvent::type).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package com.tiagoferreira.library.unite;
+
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.repository.BookRepository;
+import com.tiagoferreira.library.repository.LoanRepository;
+import jakarta.transaction.Transactional;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+@Rollback
+@Transactional
+@ActiveProfiles("persistent")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:persistent;DB_CLOSE_DELAY=-1",
+        "library.loan.journal.dir=target/persistent-journal"
+})
+public class PersistentProfileTest {
+
+    @Autowired
+    Flyway flyway;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Schema criado pelas migrações e validado pelo Hibernate teste bem sucedido")
+    public void migrationsMatchEntities() {
+        Assertions.assertNotNull(flyway.info().current());
+        Assertions.assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    @DisplayName("Gravar livro e empréstimo no schema das migrações teste bem sucedido")
+    public void saveOnMigratedSchemaIsOk() {
+        var book = bookRepository.save(Book.builder()
+                .nome("Harry Potter")
+                .autor("J.K.Rolling")
+                .isbn("persistent-1")
+                .build());
+        var loan = loanRepository.saveAndFlush(Loan.builder()
+                .customer("Fulano")
+                .customerEmail("teste@gmail.com")
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .book(book)
+                .build());
+
+        Assertions.assertTrue(loanRepository.existsByBookIdAndReturnedFalse(book.getId()));
+        Assertions.assertNotNull(loan.getId());
+    }
+}
@@ -0,0 +1,207 @@
+package com.tiagoferreira.library.unite;
+
+import com.tiagoferreira.library.config.CacheConfig;
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.exception.DomainException;
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.service.book.IBookService;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.function.Function;
+
+/**
+ * Sem @Transactional: uma transação de teste envolveria as leituras e mandaria tudo para o primário.
+ * Sem cache (nem o de segundo nível), para que toda leitura chegue a um dos bancos; {@link WithCache} liga os dois.
+ * A réplica é um segundo H2 em memória, sem replicação, criado pelas migrações Flyway.
+ * Cada teste roda dentro de uma requisição simulada; {@link #nextRequest()} inicia a seguinte.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "library.datasource.routing.enabled=true",
+        "library.datasource.routing.max-lag=PT0S",
+        "library.datasource.replica.jdbc-url=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "library.datasource.replica.username=sa",
+        "library.cache.enabled=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+public class ReadReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    IBookService bookService;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @Test
+    @DisplayName("Leitura somente leitura servida pela réplica teste bem sucedido")
+    public void readOnlyReadGoesToReplica() {
+        new JdbcTemplate(replicaDataSource).update(
+                "insert into BOOK (ID, NOME, AUTOR, ISBN, VERSION) values (900001, 'Réplica', 'J.K.Rolling', 'replica-1', 0)");
+
+        Assertions.assertEquals("Réplica", bookService.getById(900001L).getNome());
+        Assertions.assertEquals(0, count(primaryDataSource, "replica-1"));
+    }
+
+    @Test
+    @DisplayName("Escrita gravada apenas no primário teste bem sucedido")
+    public void writeGoesToPrimary() {
+        var book = bookService.create(request("routing-write"));
+
+        Assertions.assertEquals(1, count(primaryDataSource, "routing-write"));
+        Assertions.assertEquals(0, count(replicaDataSource, "routing-write"));
+        nextRequest();
+        Assertions.assertThrows(DomainException.class, () -> bookService.getById(book.getId()));
+    }
+
+    @Test
+    @DisplayName("Leitura após escrita na mesma requisição vai ao primário teste bem sucedido")
+    public void readYourWritesInSameRequest() {
+        var book = bookService.create(request("routing-sticky"));
+
+        Assertions.assertEquals("routing-sticky", bookService.getById(book.getId()).getIsbn());
+
+        nextRequest();
+        Assertions.assertThrows(DomainException.class, () -> bookService.getById(book.getId()));
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:routing-lag;DB_CLOSE_DELAY=-1",
+            "library.datasource.routing.max-lag=PT1H"
+    })
+    class WithReplicaLag {
+
+        @Autowired
+        IBookService lagBookService;
+
+        @Test
+        @DisplayName("Leitura do mesmo cliente dentro do atraso tolerado da réplica vai ao primário teste bem sucedido")
+        public void readWithinMaxLagGoesToPrimary() {
+            var book = lagBookService.create(request("routing-lag"));
+            nextRequestFromSameClient();
+
+            Assertions.assertEquals("routing-lag", lagBookService.getById(book.getId()).getIsbn());
+        }
+
+        @Test
+        @DisplayName("Leitura de outro cliente dentro do atraso tolerado vai à réplica teste bem sucedido")
+        public void otherClientReadsFromReplica() {
+            var book = lagBookService.create(request("routing-lag-other"));
+            nextRequest();
+
+            Assertions.assertThrows(DomainException.class, () -> lagBookService.getById(book.getId()));
+        }
+    }
+
+    @BeforeEach
+    void startRequest() {
+        nextRequest();
+    }
+
+    @AfterEach
+    void endRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "spring.datasource.url=jdbc:h2:mem:routing-cache;DB_CLOSE_DELAY=-1",
+            "library.cache.enabled=true",
+            "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+            "spring.jpa.properties.hibernate.cache.use_query_cache=true"
+    })
+    class WithCache {
+
+        @Autowired
+        IBookService cacheBookService;
+
+        @Autowired
+        CacheManager cacheManager;
+
+        @Autowired
+        EntityManagerFactory entityManagerFactory;
+
+        @Test
+        @DisplayName("Cache preenchido só pelo primário após leitura na réplica atrasada teste bem sucedido")
+        public void cacheHoldsPrimaryRowAfterLaggedReplicaRead() {
+            var book = cacheBookService.create(request("routing-cache"));
+            var replica = new JdbcTemplate(replicaDataSource);
+            replica.update("insert into BOOK (ID, NOME, AUTOR, ISBN, VERSION) values (?, 'Desatualizado', 'J.K.Rolling', 'routing-cache', 0)",
+                    book.getId());
+            entityManagerFactory.getCache().evictAll();
+            nextRequest();
+
+            try {
+                var fromReplica = cacheBookService.findAll(PageRequest.of(0, 1000), Function.identity()).getContent();
+                Assertions.assertTrue(fromReplica.stream().anyMatch(b -> "Desatualizado".equals(b.getNome())));
+
+                Assertions.assertEquals("Harry Potter", cacheBookService.getById(book.getId()).getNome());
+                Assertions.assertEquals("Harry Potter",
+                        cacheManager.getCache(CacheConfig.BOOKS).get(book.getId(), Book.class).getNome());
+            } finally {
+                replica.update("delete from BOOK where ID = ?", book.getId());
+            }
+        }
+    }
+
+    private static void nextRequest() {
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest(), new MockHttpServletResponse()));
+    }
+
+    /**
+     * Inicia a próxima requisição devolvendo os cookies recebidos na anterior, como faria o mesmo cliente.
+     */
+    private static void nextRequestFromSameClient() {
+        var previous = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        var request = new MockHttpServletRequest();
+        request.setCookies(((MockHttpServletResponse) previous.getResponse()).getCookies());
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+    }
+
+    private static BookRequest request(String isbn) {
+        return BookRequest.builder()
+                .nome("Harry Potter")
+                .autor("J.K.Rolling")
+                .isbn(isbn)
+                .build();
+    }
+
+    private static int count(DataSource dataSource, String isbn) {
+        return new JdbcTemplate(dataSource).queryForObject("select count(*) from BOOK where ISBN = ?", Integer.class, isbn);
+    }
+}
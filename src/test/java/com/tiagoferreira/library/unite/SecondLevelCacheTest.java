@@ -0,0 +1,156 @@
+package com.tiagoferreira.library.unite;
+
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.repository.BookRepository;
+import com.tiagoferreira.library.repository.LoanRepository;
+import com.tiagoferreira.library.service.book.IBookService;
+import com.tiagoferreira.library.service.loan.ILoanService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Sem o cache do Spring, para que as leituras repetidas cheguem ao Hibernate; sem @Transactional,
+ * porque resultados de consulta só são reaproveitados depois do commit.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:secondlevel;DB_CLOSE_DELAY=-1",
+        "library.cache.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class SecondLevelCacheTest {
+
+    @Autowired
+    IBookService bookService;
+
+    @Autowired
+    ILoanService loanService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Buscar livro por id repetidas vezes não executa SQL após a primeira leitura teste bem sucedido")
+    public void bookIsReadFromSecondLevelCache() {
+        var book = bookRepository.save(book());
+        entityManagerFactory.getCache().evict(Book.class);
+
+        bookService.getById(book.getId());
+        statistics.clear();
+        var cached = bookService.getById(book.getId());
+
+        Assertions.assertEquals(book.getIsbn(), cached.getIsbn());
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getDomainDataRegionStatistics(Book.class.getName()).getHitCount());
+    }
+
+    @Test
+    @DisplayName("Carregar empréstimo e seu livro pelo id não executa SQL após a primeira leitura teste bem sucedido")
+    public void loanAndBookAreReadFromSecondLevelCache() {
+        var book = bookRepository.save(book());
+        var loan = loanRepository.save(Loan.builder()
+                .customer("Fulano")
+                .customerEmail("cache@gmail.com")
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .book(book)
+                .build());
+        Function<Long, String> isbnOfLoan = id -> transactionTemplate.execute(status ->
+                loanRepository.findById(id).orElseThrow().getBook().getIsbn());
+
+        isbnOfLoan.apply(loan.getId());
+        statistics.clear();
+
+        Assertions.assertEquals(book.getIsbn(), isbnOfLoan.apply(loan.getId()));
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Criar empréstimo não invalida os livros em cache teste bem sucedido")
+    public void createLoanKeepsBooksCached() {
+        var book = bookRepository.save(book());
+        bookService.getById(book.getId());
+
+        loanService.create(LoanRequest.builder()
+                .customer("Fulano")
+                .customerEmail("reserva@gmail.com")
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .idBook(book.getId())
+                .build());
+        statistics.clear();
+
+        bookService.getById(book.getId());
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Consulta de ISBN existente repetida vem do cache de consultas teste bem sucedido")
+    public void existsByIsbnIsReadFromQueryCache() {
+        var book = bookRepository.save(book());
+
+        Assertions.assertTrue(bookRepository.existsByIsbn(book.getIsbn()));
+        statistics.clear();
+
+        Assertions.assertTrue(bookRepository.existsByIsbn(book.getIsbn()));
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Listagem paginada repetida executa só a consulta da página, sem a contagem teste bem sucedido")
+    public void pageCountIsReadFromQueryCache() {
+        for (int i = 0; i < 3; i++) {
+            bookRepository.save(book());
+        }
+        var pageable = PageRequest.of(0, 2);
+
+        var first = bookService.findAll(pageable, Function.identity());
+        statistics.clear();
+        var second = bookService.findAll(pageable, Function.identity());
+
+        Assertions.assertEquals(first.getTotalElements(), second.getTotalElements());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+
+        bookRepository.save(book());
+        Assertions.assertEquals(first.getTotalElements() + 1, bookService.findAll(pageable, Function.identity()).getTotalElements());
+    }
+
+    private static Book book() {
+        return Book.builder()
+                .nome("Harry Potter")
+                .autor("J.K.Rolling")
+                .isbn("segundo-nivel-" + UUID.randomUUID())
+                .build();
+    }
+}
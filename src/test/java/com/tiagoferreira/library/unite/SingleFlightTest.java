@@ -0,0 +1,179 @@
+package com.tiagoferreira.library.unite;
+
+import com.tiagoferreira.library.config.SingleFlight;
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.exception.DomainException;
+import com.tiagoferreira.library.repository.BookRepository;
+import com.tiagoferreira.library.service.book.IBookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sem cache: toda chamada que não for agrupada iria ao repositório.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:singleflight;DB_CLOSE_DELAY=-1",
+        "library.cache.enabled=false"
+})
+public class SingleFlightTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    IBookService bookService;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @SpyBean
+    BookRepository bookRepository;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Buscas concorrentes do mesmo livro fazem uma única consulta teste bem sucedido")
+    public void concurrentGetByIdIsCollapsed() throws Exception {
+        var book = bookRepository.save(Book.builder().nome("Harry Potter").autor("J.K.Rolling").isbn("single-flight").build());
+        var id = book.getId();
+        var release = blockFindById(id, Optional.of(book));
+        var before = collapsed();
+
+        var results = getConcurrently(id);
+        awaitCollapsed(before + THREADS - 1);
+        release.countDown();
+
+        var books = new ArrayList<Book>();
+        for (var result : results) {
+            var found = result.get(10, TimeUnit.SECONDS);
+            Assertions.assertEquals(id, found.getId());
+            Assertions.assertEquals("Harry Potter", found.getNome());
+            Assertions.assertTrue(books.stream().noneMatch(other -> other == found));
+            books.add(found);
+        }
+        Mockito.verify(bookRepository, Mockito.times(1)).findById(id);
+    }
+
+    @Test
+    @DisplayName("Buscas concorrentes dentro de transação não são agrupadas teste bem sucedido")
+    public void getByIdInsideTransactionIsNotCollapsed() throws Exception {
+        var book = bookRepository.save(Book.builder().nome("Harry Potter").autor("J.K.Rolling").isbn("single-flight-tx").build());
+        var id = book.getId();
+        var release = blockFindById(id, Optional.of(book));
+        var before = collapsed();
+
+        var results = new ArrayList<Future<Book>>();
+        for (int i = 0; i < 2; i++) {
+            results.add(executor.submit(() -> transactionTemplate.execute(status -> bookService.getById(id))));
+        }
+        Mockito.verify(bookRepository, Mockito.timeout(10_000).times(2)).findById(id);
+        release.countDown();
+
+        for (var result : results) {
+            Assertions.assertEquals(id, result.get(10, TimeUnit.SECONDS).getId());
+        }
+        Assertions.assertEquals(before, collapsed());
+    }
+
+    @Test
+    @DisplayName("Busca concorrente teste mal sucedido, erro da carga chega a todas as chamadas")
+    public void errorIsPropagatedToCollapsedCalls() throws Exception {
+        var id = -1L;
+        var release = blockFindById(id, Optional.empty());
+        var before = collapsed();
+
+        var results = getConcurrently(id);
+        awaitCollapsed(before + THREADS - 1);
+        release.countDown();
+
+        for (var result : results) {
+            var error = Assertions.assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+            Assertions.assertInstanceOf(DomainException.class, error.getCause());
+        }
+        Mockito.verify(bookRepository, Mockito.times(1)).findById(id);
+    }
+
+    @Test
+    @DisplayName("Espera por carga em andamento teste mal sucedido, tempo esgotado")
+    public void waitingIsBoundedByTimeout() throws Exception {
+        var flight = new SingleFlight<Long, String>(Duration.ofMillis(50));
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var leader = executor.submit(() -> {
+            try {
+                return flight.load(1L, () -> {
+                    started.countDown();
+                    release.await();
+                    return "livro";
+                });
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        started.await(10, TimeUnit.SECONDS);
+
+        try {
+            Assertions.assertThrows(QueryTimeoutException.class, () -> flight.load(1L, () -> "outro"));
+        } finally {
+            release.countDown();
+        }
+        Assertions.assertEquals(1, flight.collapsed());
+        Assertions.assertEquals("livro", leader.get(10, TimeUnit.SECONDS));
+    }
+
+    private CountDownLatch blockFindById(Long id, Optional<Book> result) {
+        var release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return result;
+        }).when(bookRepository).findById(id);
+        return release;
+    }
+
+    private List<Future<Book>> getConcurrently(Long id) {
+        var results = new ArrayList<Future<Book>>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> bookService.getById(id)));
+        }
+        return results;
+    }
+
+    private double collapsed() {
+        return registry.get("library.single-flight.collapsed").tag("operation", "getById").functionCounter().count();
+    }
+
+    private void awaitCollapsed(double expected) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (collapsed() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Assertions.assertEquals(expected, collapsed());
+    }
+}
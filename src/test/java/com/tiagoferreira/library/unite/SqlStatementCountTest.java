@@ -0,0 +1,127 @@
+package com.tiagoferreira.library.unite;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagoferreira.library.entity.Book;
+import com.tiagoferreira.library.entity.Loan;
+import com.tiagoferreira.library.model.LeanPage;
+import com.tiagoferreira.library.model.loan.LoanResponse;
+import com.tiagoferreira.library.model.loan.LoanSummaryResponse;
+import com.tiagoferreira.library.repository.BookRepository;
+import com.tiagoferreira.library.repository.LoanRepository;
+import com.tiagoferreira.library.suport.PaginationImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@Rollback
+@Transactional
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class SqlStatementCountTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Listar 100 emprestimos executa apenas a consulta da pagina e a contagem")
+    public void findAllLoansWithoutNPlusOne() throws Exception {
+        createLoans(100);
+
+        var result = mvc.perform(get("/loans/all")
+                        .param("page", "0")
+                        .param("size", "100")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+
+        final PaginationImpl<LoanResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {
+        });
+
+        Assertions.assertEquals(100, response.getContent().size());
+        Assertions.assertTrue(response.getContent().stream().allMatch(loan -> loan.getBook() != null));
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Listar 100 emprestimos no envelope enxuto executa apenas a consulta da pagina")
+    public void findAllLoansLeanWithoutCount() throws Exception {
+        createLoans(100);
+
+        var result = mvc.perform(get("/loans/all")
+                        .param("page", "0")
+                        .param("size", "100")
+                        .param("lean", "true")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        final LeanPage<LoanSummaryResponse> response = Jackson2ObjectMapperBuilder.cbor().build()
+                .readValue(result.getResponse().getContentAsByteArray(), new TypeReference<>() {
+                });
+
+        Assertions.assertEquals(MediaType.APPLICATION_CBOR_VALUE, result.getResponse().getContentType());
+        Assertions.assertEquals(100, response.getContent().size());
+        Assertions.assertTrue(response.getContent().stream().allMatch(loan -> loan.getBookId() != null));
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private void createLoans(int count) {
+        for (int i = 0; i < count; i++) {
+            var book = bookRepository.save(Book.builder()
+                    .nome("Harry Potter " + i)
+                    .autor("J.K.Rolling")
+                    .isbn("contagem-" + UUID.randomUUID())
+                    .build());
+            loanRepository.save(Loan.builder()
+                    .customer("Fulano " + i)
+                    .customerEmail("teste@gmail.com")
+                    .loanDate(LocalDate.now())
+                    .returned(false)
+                    .book(book)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+    }
+}
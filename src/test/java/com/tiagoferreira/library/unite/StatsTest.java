@@ -0,0 +1,168 @@
+package com.tiagoferreira.library.unite;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagoferreira.library.model.book.BookRequest;
+import com.tiagoferreira.library.model.loan.LoanRequest;
+import com.tiagoferreira.library.model.loan.LoanReturnRequest;
+import com.tiagoferreira.library.model.stats.StatsResponse;
+import com.tiagoferreira.library.service.book.IBookService;
+import com.tiagoferreira.library.service.loan.ILoanService;
+import com.tiagoferreira.library.service.stats.IStatsService;
+import com.tiagoferreira.library.service.stats.LongCounterMap;
+import com.tiagoferreira.library.service.stats.StatsService;
+import com.tiagoferreira.library.service.stats.TopK;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Sem @Transactional: as estatísticas só mudam após o commit.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stats;DB_CLOSE_DELAY=-1")
+public class StatsTest {
+
+    @Autowired
+    IBookService bookService;
+
+    @Autowired
+    ILoanService loanService;
+
+    @Autowired
+    IStatsService statsService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("Estatísticas alimentadas pelas gravações e reconstruídas do banco teste bem sucedido")
+    public void statsFollowWrites() throws Exception {
+        var before = stats();
+
+        var first = createBook("stats-1", "Autora Estatística");
+        var second = createBook("stats-2", "Autora Estatística");
+        var third = createBook("stats-3", "Outro Autor");
+        var loan = loanService.create(loanRequest(first, "stats1@gmail.com"));
+        loanService.retornedBook(loan.getId(), LoanRequest.builder().returned(true).build(), null);
+        loanService.create(loanRequest(first, "stats2@gmail.com"));
+        loanService.create(loanRequest(second, "stats3@gmail.com"));
+        var deleted = loanService.create(loanRequest(third, "stats4@gmail.com"));
+        loanService.delete(deleted.getId());
+        loanService.returnAll(new LoanReturnRequest(null, List.of(second)));
+
+        var after = stats();
+        Assertions.assertEquals(before.getBooks() + 3, after.getBooks());
+        Assertions.assertEquals(before.getLoans() + 3, after.getLoans());
+        Assertions.assertEquals(before.getOpenLoans() + 1, after.getOpenLoans());
+        Assertions.assertEquals(before.getLoansPerDay().get(LocalDate.now()) + 3, after.getLoansPerDay().get(LocalDate.now()));
+        Assertions.assertEquals(30, after.getLoansPerDay().size());
+        Assertions.assertEquals("Autora Estatística", after.getTopAuthors().get(0).getAutor());
+        Assertions.assertEquals(2, after.getTopAuthors().get(0).getBooks());
+        Assertions.assertEquals(first, after.getMostBorrowedBooks().get(0).getBookId());
+        Assertions.assertEquals(2, after.getMostBorrowedBooks().get(0).getLoans());
+
+        statsService.rebuild();
+
+        var rebuilt = stats();
+        Assertions.assertEquals(after.getBooks(), rebuilt.getBooks());
+        Assertions.assertEquals(after.getLoans(), rebuilt.getLoans());
+        Assertions.assertEquals(after.getOpenLoans(), rebuilt.getOpenLoans());
+        Assertions.assertEquals(after.getLoansPerDay(), rebuilt.getLoansPerDay());
+        Assertions.assertEquals(first, rebuilt.getMostBorrowedBooks().get(0).getBookId());
+        Assertions.assertEquals(2, rebuilt.getTopAuthors().get(0).getBooks());
+    }
+
+    @Test
+    @DisplayName("Estatísticas teste mal sucedido, quantidade de dias inválida")
+    public void invalidDays() {
+        Assertions.assertThrows(ServletException.class, () -> mvc.perform(get("/stats").param("days", "0")));
+    }
+
+    @Test
+    @DisplayName("Ranking fica desatualizado quando um membro cai com o ranking cheio teste bem sucedido")
+    public void topKAndCounterMap() {
+        var counts = new LongCounterMap(4);
+        var top = new TopK<Long>(2);
+        for (long key = 1; key <= 100; key++) {
+            top.update(key, counts.add(key, key % 10));
+        }
+        Assertions.assertEquals(90, counts.size());
+        Assertions.assertEquals(List.of(9L, 19L), top.top().stream().map(TopK.Ranked::key).toList());
+        Assertions.assertFalse(top.isStale());
+
+        top.update(19L, counts.add(19L, -9));
+        Assertions.assertEquals(0, counts.get(19L));
+        Assertions.assertEquals(89, counts.size());
+        Assertions.assertTrue(top.isStale());
+
+        top.clear();
+        counts.forEach(top::update);
+        Assertions.assertEquals(List.of(9L, 9L), top.top().stream().map(TopK.Ranked::count).toList());
+        Assertions.assertEquals(9, counts.get(29L));
+    }
+
+    @Test
+    @DisplayName("Ranking desatualizado remontado em segundo plano, servindo o ultimo valido ate la teste bem sucedido")
+    public void staleRankingRebuiltOffRequest() {
+        var pending = new ArrayDeque<Runnable>();
+        var service = new StatsService(null, null, null, pending::add, 1);
+        service.bookCreated("Autora A");
+        service.bookCreated("Autora A");
+        service.bookCreated("Autor B");
+        Assertions.assertEquals("Autora A", service.summary(1).getTopAuthors().get(0).getAutor());
+
+        service.bookDeleted("Autora A");
+        service.bookDeleted("Autora A");
+        Assertions.assertEquals(1, pending.size());
+
+        var served = service.summary(1).getTopAuthors();
+        Assertions.assertEquals("Autora A", served.get(0).getAutor());
+        Assertions.assertEquals(2, served.get(0).getBooks());
+        Assertions.assertEquals(1, pending.size());
+
+        while (!pending.isEmpty()) {
+            pending.poll().run();
+        }
+        var ranked = service.summary(1).getTopAuthors();
+        Assertions.assertEquals("Autor B", ranked.get(0).getAutor());
+        Assertions.assertEquals(1, ranked.get(0).getBooks());
+    }
+
+    private StatsResponse stats() throws Exception {
+        var content = mvc.perform(get("/stats")).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readValue(content, StatsResponse.class);
+    }
+
+    private Long createBook(String isbn, String autor) {
+        return bookService.create(BookRequest.builder()
+                .nome("Livro " + isbn)
+                .autor(autor)
+                .isbn(isbn)
+                .build()).getId();
+    }
+
+    private static LoanRequest loanRequest(Long book, String email) {
+        return LoanRequest.builder()
+                .customer("Cliente Estatística")
+                .customerEmail(email)
+                .loanDate(LocalDate.now())
+                .returned(false)
+                .idBook(book)
+                .build();
+    }
+}